@@ -0,0 +1,46 @@
+#!/bin/bash
+# Throughput comparison of the blocking (Jedis + Tomcat threads) and reactive (Lettuce) read paths.
+# Requires `hey` (https://github.com/rakyll/hey) and a running app started with the reactive profile, e.g.
+#   ./mvnw spring-boot:run -Dspring-boot.run.profiles=reactive
+#
+# Both paths read the same newest page of products. The blocking path also renders Thymeleaf, so compare how
+# each path's throughput scales as concurrency grows rather than the absolute numbers.
+#
+# Platform vs virtual threads: run the blocking path once against the app started normally and once with the
+# virtual profile, and compare the two tables:
+#   PATHS=blocking LABEL=platform ./load-test.sh
+#   PATHS=blocking LABEL=virtual ./load-test.sh    # app started with -Dspring-boot.run.profiles=virtual
+#
+# Usage: ./load-test.sh [base-url] [requests-per-level]
+
+set -e
+
+BASE_URL=${1:-http://localhost:8080}
+REQUESTS=${2:-5000}
+CONCURRENCY_LEVELS=${CONCURRENCY_LEVELS:-"10 50 200 500"}
+PATHS=${PATHS:-"blocking reactive"}
+LABEL=${LABEL:-}
+
+if ! command -v hey > /dev/null; then
+    echo "hey is not installed: go install github.com/rakyll/hey@latest"
+    exit 1
+fi
+
+run() {
+    local name=$1
+    local url=$2
+    local concurrency=$3
+    local rps
+    rps=$(hey -n "$REQUESTS" -c "$concurrency" "$url" | awk '/Requests\/sec/ {print $2}')
+    printf "%-10s %-10s %6s %12s\n" "$LABEL" "$name" "$concurrency" "$rps"
+}
+
+printf "%-10s %-10s %6s %12s\n" "label" "path" "conc" "req/sec"
+for concurrency in $CONCURRENCY_LEVELS; do
+    for path in $PATHS; do
+        case $path in
+            blocking) run "blocking" "$BASE_URL/products?size=20" "$concurrency" ;;
+            reactive) run "reactive" "$BASE_URL/api/products?limit=20" "$concurrency" ;;
+        esac
+    done
+done
@@ -0,0 +1,28 @@
+#!/bin/sh
+# Local Redis Cluster for the "cluster" compose profile: six redis-server processes in one container,
+# three primaries with one replica each. Nodes announce 127.0.0.1 and the ports are published one to one,
+# so an application on the host can follow MOVED redirects and reach every node.
+set -e
+
+PORTS="7000 7001 7002 7003 7004 7005"
+
+for port in $PORTS; do
+  mkdir -p /data/$port
+  redis-server --port $port --bind 0.0.0.0 --protected-mode no \
+    --cluster-enabled yes --cluster-config-file /data/$port/nodes.conf --cluster-node-timeout 5000 \
+    --cluster-announce-ip 127.0.0.1 \
+    --appendonly yes --dir /data/$port \
+    --logfile /data/$port/redis.log --daemonize yes
+done
+
+for port in $PORTS; do
+  until redis-cli -p $port ping > /dev/null 2>&1; do sleep 0.2; done
+done
+
+if ! redis-cli -p 7000 cluster info | grep -q 'cluster_state:ok'; then
+  redis-cli --cluster create \
+    127.0.0.1:7000 127.0.0.1:7001 127.0.0.1:7002 127.0.0.1:7003 127.0.0.1:7004 127.0.0.1:7005 \
+    --cluster-replicas 1 --cluster-yes
+fi
+
+exec tail -F /data/7000/redis.log
@@ -0,0 +1,33 @@
+#!/bin/sh
+# Local primary/replica set for the "sentinel" compose profile: one primary (6380), two replicas (6381, 6382)
+# and three Sentinels (26379-26381) watching it as "products", all in one container. Everything announces
+# 127.0.0.1 and the ports are published one to one, so the addresses Sentinel hands out work from the host.
+set -e
+
+mkdir -p /data/6380 /data/6381 /data/6382
+
+redis-server --port 6380 --bind 0.0.0.0 --protected-mode no --replica-announce-ip 127.0.0.1 \
+  --appendonly yes --dir /data/6380 --logfile /data/6380/redis.log --daemonize yes
+for port in 6381 6382; do
+  redis-server --port $port --bind 0.0.0.0 --protected-mode no --replica-announce-ip 127.0.0.1 \
+    --replicaof 127.0.0.1 6380 \
+    --appendonly yes --dir /data/$port --logfile /data/$port/redis.log --daemonize yes
+done
+
+# Sentinel rewrites its configuration file, so each one gets a fresh writable copy
+for port in 26379 26380 26381; do
+  cat > /tmp/sentinel-$port.conf <<CONF
+port $port
+bind 0.0.0.0
+protected-mode no
+sentinel announce-ip 127.0.0.1
+sentinel resolve-hostnames yes
+sentinel monitor products 127.0.0.1 6380 2
+sentinel down-after-milliseconds products 5000
+sentinel failover-timeout products 10000
+sentinel parallel-syncs products 1
+CONF
+  redis-server /tmp/sentinel-$port.conf --sentinel --logfile /tmp/sentinel-$port.log --daemonize yes
+done
+
+exec tail -F /tmp/sentinel-26379.log
@@ -0,0 +1,114 @@
+package id.my.hendisantika.crudredis.benchmark;
+
+import id.my.hendisantika.crudredis.SpringBootCrudRedisApplication;
+import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.service.ProductService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 20.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * An embedded Redis server plus the application context (without web server) loaded with a deterministic
+ * catalog, so benchmark results don't depend on network or on whatever data a shared Redis holds.
+ * The near-cache is disabled so reads measure the Redis path.
+ */
+final class EmbeddedCatalog {
+
+    static final String[] NAMES = {
+            "Laptop", "Smartphone", "Tablet", "Headphones", "Smartwatch",
+            "Camera", "Monitor", "Keyboard", "Mouse", "Speaker",
+            "Router", "Hard Drive", "SSD", "RAM", "Graphics Card"
+    };
+
+    static final String[] CATEGORIES = {
+            "Electronics", "Computers", "Accessories", "Audio", "Storage",
+            "Networking", "Peripherals", "Gaming"
+    };
+
+    private final RedisServer redisServer;
+    private final ConfigurableApplicationContext context;
+
+    private EmbeddedCatalog(RedisServer redisServer, ConfigurableApplicationContext context) {
+        this.redisServer = redisServer;
+        this.context = context;
+    }
+
+    static EmbeddedCatalog start(int catalogSize) throws IOException {
+        int port = freePort();
+        RedisServer redisServer = new RedisServer(port);
+        redisServer.start();
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBootCrudRedisApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.data.redis.host=localhost",
+                        "spring.data.redis.port=" + port,
+                        "spring.data.redis.ssl.enabled=false",
+                        "spring.docker.compose.enabled=false",
+                        "products.near-cache.enabled=false",
+                        // Nothing but load() writes, so every run measures the same catalog
+                        "products.sample-data.enabled=false",
+                        "products.generator.enabled=false",
+                        "products.retention.enabled=false",
+                        "products.aggregates.reconcile-enabled=false",
+                        "logging.level.id.my.hendisantika.crudredis=WARN")
+                .run();
+
+        EmbeddedCatalog catalog = new EmbeddedCatalog(redisServer, context);
+        catalog.load(catalogSize);
+        return catalog;
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    void stop() throws IOException {
+        context.close();
+        redisServer.stop();
+    }
+
+    /**
+     * Names are {@code <NAME> <n>}, so "laptop" matches 1/15 of the catalog and "laptop 4242" a handful.
+     */
+    static Product product(int n) {
+        Random random = new Random(n);
+        Product product = new Product();
+        product.setName(NAMES[n % NAMES.length] + " " + n);
+        product.setDescription("Benchmark product number " + n);
+        product.setCategory(CATEGORIES[n % CATEGORIES.length]);
+        product.setPrice(BigDecimal.valueOf(100 + random.nextInt(990_000), 2));
+        product.setQuantity(1 + random.nextInt(100));
+        return product;
+    }
+
+    private void load(int catalogSize) {
+        ProductService productService = bean(ProductService.class);
+        IntStream.range(0, catalogSize).parallel().forEach(n -> productService.saveProduct(product(n)));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package id.my.hendisantika.crudredis.benchmark;
+
+import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 20.30
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * One {@code findById} round trip per id against the pipelined {@code findAllByIdPipelined}.
+ * Against a local embedded Redis the gap is the per-command overhead; over TLS to a remote server every
+ * saved round trip is a full RTT on top.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductBulkFetchBenchmark {
+
+    @Param({"20", "200", "2000"})
+    private int ids;
+
+    private EmbeddedCatalog catalog;
+    private ProductRepository productRepository;
+    private List<String> productIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        catalog = EmbeddedCatalog.start(10_000);
+        productRepository = catalog.bean(ProductRepository.class);
+        productIds = new ArrayList<>(catalog.bean(StringRedisTemplate.class).opsForSet()
+                .distinctRandomMembers("Product", ids));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        catalog.stop();
+    }
+
+    @Benchmark
+    public List<Product> findAllByIdPerId() {
+        List<Product> products = new ArrayList<>(productIds.size());
+        productIds.forEach(id -> productRepository.findById(id).ifPresent(products::add));
+        return products;
+    }
+
+    @Benchmark
+    public List<Product> findAllByIdPipelined() {
+        return productRepository.findAllByIdPipelined(productIds);
+    }
+}
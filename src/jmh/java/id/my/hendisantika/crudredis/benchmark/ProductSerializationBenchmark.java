@@ -0,0 +1,116 @@
+package id.my.hendisantika.crudredis.benchmark;
+
+import id.my.hendisantika.crudredis.codec.ProductCodec;
+import id.my.hendisantika.crudredis.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.convert.MappingRedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.core.mapping.RedisMappingContext;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 20.45
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Encode/decode cost of the three Product representations: the {@code @RedisHash} mapping of the hashes written
+ * before {@code products.codec.write-format=binary}, the JSON serializer of {@code redisTemplate}, and the binary
+ * {@link ProductCodec} that product hashes and the near-cache now hold.
+ * Bytes per product for each are printed once per trial. Needs no Redis server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductSerializationBenchmark {
+
+    private Product product;
+    private MappingRedisConverter hashConverter;
+    private RedisSerializer<Object> jsonSerializer;
+
+    private RedisData hash;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        product = EmbeddedCatalog.product(4242);
+        product.setId("550e8400-e29b-41d4-a716-446655440000");
+        product.setCreatedAt(1_760_000_000_000L);
+
+        hashConverter = new MappingRedisConverter(new RedisMappingContext());
+        hashConverter.afterPropertiesSet();
+        jsonSerializer = new GenericJackson2JsonRedisSerializer();
+
+        hash = writeHash();
+        json = jsonSerializer.serialize(product);
+        binary = ProductCodec.encode(product);
+
+        long hashBytes = 0;
+        for (Map.Entry<byte[], byte[]> field : hash.getBucket().rawMap().entrySet()) {
+            hashBytes += field.getKey().length + field.getValue().length;
+        }
+        System.out.printf("%nBytes per product: hash fields+values=%d, json=%d, binary=%d%n",
+                hashBytes, json.length, binary.length);
+    }
+
+    @Benchmark
+    public RedisData hashWrite() {
+        return writeHash();
+    }
+
+    @Benchmark
+    public Product hashRead() {
+        return hashConverter.read(Product.class, hash);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return jsonSerializer.serialize(product);
+    }
+
+    @Benchmark
+    public Object jsonDeserialize() {
+        return jsonSerializer.deserialize(json);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return ProductCodec.encode(product);
+    }
+
+    @Benchmark
+    public Product binaryDeserialize() {
+        return ProductCodec.decode(binary);
+    }
+
+    private RedisData writeHash() {
+        RedisData data = new RedisData();
+        hashConverter.write(product, data);
+        return data;
+    }
+}
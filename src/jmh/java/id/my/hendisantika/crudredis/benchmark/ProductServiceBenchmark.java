@@ -0,0 +1,90 @@
+package id.my.hendisantika.crudredis.benchmark;
+
+import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.model.ProductPage;
+import id.my.hendisantika.crudredis.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 20.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Latency of the {@link ProductService} read paths against an embedded Redis holding {@code catalogSize} products.
+ * The 1M catalog takes a few minutes to load and several GB of Redis memory (mostly the n-gram index);
+ * select sizes with {@code -p catalogSize=1000,100000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int catalogSize;
+
+    private EmbeddedCatalog catalog;
+    private ProductService productService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        catalog = EmbeddedCatalog.start(catalogSize);
+        productService = catalog.bean(ProductService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        catalog.stop();
+    }
+
+    @Benchmark
+    public List<Product> searchProductsByNameSelective() {
+        return productService.searchProductsByName("laptop 42");
+    }
+
+    @Benchmark
+    public List<Product> searchProductsByNameBroad() {
+        return productService.searchProductsByName("laptop");
+    }
+
+    @Benchmark
+    public List<Product> getProductsByCategory() {
+        return productService.getProductsByCategory("Audio");
+    }
+
+    @Benchmark
+    public List<Product> getAllProducts() {
+        return productService.getAllProducts();
+    }
+
+    @Benchmark
+    public ProductPage getProductPage() {
+        return productService.getProductPage(null, null, 20);
+    }
+}
@@ -0,0 +1,182 @@
+package id.my.hendisantika.crudredis.bulk;
+
+import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.service.ProductService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 22.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Streaming NDJSON and CSV import/export of products.
+ * Imports read one record at a time and write every {@code products.bulk.batch-size} valid records with
+ * {@link ProductService#saveProducts}; the next batch isn't read until the previous one is stored, so memory
+ * stays bounded and a slow Redis slows down the upload instead of buffering it.
+ * Batches already written stay written when an import fails part way; records carrying an id are upserts,
+ * so re-running such an import is safe.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductBulkService {
+
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private final ProductService productService;
+    private final Validator validator;
+    private final JsonMapper jsonMapper;
+
+    @Value("${products.bulk.batch-size:500}")
+    private int batchSize;
+
+    public ProductImportResult importNdjson(InputStream input) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Batch batch = new Batch();
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                batch.add("line " + lineNumber, jsonMapper.readValue(line, Product.class));
+            } catch (JacksonException e) {
+                batch.reject("line " + lineNumber, "malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+        return batch.finish();
+    }
+
+    public ProductImportResult importCsv(InputStream input) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<String> headerRecord = ProductCsv.readRecord(reader);
+        if (headerRecord == null) {
+            return new ProductImportResult(0, 0, List.of());
+        }
+        Map<String, Integer> header = ProductCsv.header(headerRecord);
+
+        Batch batch = new Batch();
+        long recordNumber = 1;
+        List<String> record;
+        while ((record = ProductCsv.readRecord(reader)) != null) {
+            recordNumber++;
+            if (ProductCsv.isBlank(record)) {
+                continue;
+            }
+            try {
+                batch.add("record " + recordNumber, ProductCsv.toProduct(header, record));
+            } catch (IllegalArgumentException e) {
+                batch.reject("record " + recordNumber, e.getMessage());
+            }
+        }
+        return batch.finish();
+    }
+
+    public void exportNdjson(OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        try (Stream<Product> products = productService.streamProducts()) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                writer.write(jsonMapper.writeValueAsString(iterator.next()));
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+
+    public void exportCsv(OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        ProductCsv.writeRecord(writer, ProductCsv.COLUMNS);
+        try (Stream<Product> products = productService.streamProducts()) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                ProductCsv.writeRecord(writer, ProductCsv.fromProduct(iterator.next()));
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Validates records as they arrive and saves them a batch at a time.
+     */
+    private final class Batch {
+
+        private final List<Product> products = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private long imported;
+        private long rejected;
+
+        void add(String position, Product product) {
+            // Derive categoryKey from category, whatever the input said
+            product.setCategory(product.getCategory());
+            Set<ConstraintViolation<Product>> violations = validator.validate(product);
+            if (!violations.isEmpty()) {
+                reject(position, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+                return;
+            }
+            products.add(product);
+            if (products.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(String position, String reason) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(position + ": " + reason);
+            }
+        }
+
+        ProductImportResult finish() {
+            flush();
+            log.info("Imported {} products, rejected {}", imported, rejected);
+            return new ProductImportResult(imported, rejected, List.copyOf(errors));
+        }
+
+        private void flush() {
+            if (products.isEmpty()) {
+                return;
+            }
+            productService.saveProducts(new ArrayList<>(products));
+            imported += products.size();
+            products.clear();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package id.my.hendisantika.crudredis.bulk;
+
+import id.my.hendisantika.crudredis.model.Product;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 22.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Minimal RFC 4180 CSV for products: comma separated, fields quoted with {@code "} when they contain a comma,
+ * quote or line break, quotes doubled inside quoted fields. The first record is the header.
+ */
+final class ProductCsv {
+
+    static final List<String> COLUMNS = List.of("id", "name", "description", "category", "price", "quantity", "createdAt");
+
+    private ProductCsv() {
+    }
+
+    /**
+     * Reads one record, or returns {@code null} at the end of input.
+     *
+     * @param reader must support {@link Reader#mark}, e.g. a {@link java.io.BufferedReader}
+     */
+    static List<String> readRecord(Reader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean read = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                    continue;
+                }
+                reader.mark(1);
+                if (reader.read() == '"') {
+                    field.append('"');
+                } else {
+                    reader.reset();
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!read) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    static void writeRecord(Writer writer, List<String> fields) throws IOException {
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String field = fields.get(i);
+            if (field == null) {
+                continue;
+            }
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(field.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(field);
+            }
+        }
+        writer.write('\n');
+    }
+
+    static boolean isBlank(List<String> record) {
+        return record.size() == 1 && record.getFirst().isBlank();
+    }
+
+    /**
+     * Maps known column names (case-insensitive, in any order) to their position; unknown columns are ignored.
+     */
+    static Map<String, Integer> header(List<String> record) {
+        Map<String, String> known = new HashMap<>();
+        COLUMNS.forEach(column -> known.put(column.toLowerCase(Locale.ROOT), column));
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < record.size(); i++) {
+            String column = known.get(record.get(i).trim().toLowerCase(Locale.ROOT));
+            if (column != null) {
+                positions.put(column, i);
+            }
+        }
+        if (!positions.containsKey("name")) {
+            throw new IllegalArgumentException("CSV header must contain a 'name' column");
+        }
+        return positions;
+    }
+
+    /**
+     * @throws IllegalArgumentException when a numeric column can't be parsed
+     */
+    static Product toProduct(Map<String, Integer> header, List<String> record) {
+        Function<String, String> value = column -> {
+            Integer position = header.get(column);
+            if (position == null || position >= record.size() || record.get(position).isBlank()) {
+                return null;
+            }
+            return record.get(position).trim();
+        };
+        Product product = new Product();
+        product.setId(value.apply("id"));
+        product.setName(value.apply("name"));
+        product.setDescription(value.apply("description"));
+        product.setCategory(value.apply("category"));
+        product.setPrice(parse(value.apply("price"), "price", BigDecimal::new));
+        product.setQuantity(parse(value.apply("quantity"), "quantity", Integer::valueOf));
+        product.setCreatedAt(parse(value.apply("createdAt"), "createdAt", Long::valueOf));
+        return product;
+    }
+
+    static List<String> fromProduct(Product product) {
+        return Arrays.asList(
+                product.getId(),
+                product.getName(),
+                product.getDescription(),
+                product.getCategory(),
+                product.getPrice() != null ? product.getPrice().toPlainString() : null,
+                product.getQuantity() != null ? product.getQuantity().toString() : null,
+                product.getCreatedAt() != null ? product.getCreatedAt().toString() : null);
+    }
+
+    private static <T> T parse(String value, String column, Function<String, T> parser) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + ": '" + value + "' is not a number");
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package id.my.hendisantika.crudredis.bulk;
+
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 22.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Outcome of a bulk import.
+ *
+ * @param errors one entry per rejected record (up to {@link ProductBulkService#MAX_REPORTED_ERRORS}),
+ *               prefixed with its line or record number
+ */
+public record ProductImportResult(long imported, long rejected, List<String> errors) {
+}
@@ -0,0 +1,152 @@
+package id.my.hendisantika.crudredis.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import id.my.hendisantika.crudredis.codec.ProductCodec;
+import id.my.hendisantika.crudredis.index.ProductKeys;
+import id.my.hendisantika.crudredis.model.Product;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 14.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Bounded in-process cache of products by id, in front of {@code ProductRepository.findById}.
+ * <p>
+ * Local writes invalidate directly. Writes from other instances arrive as keyspace notifications on
+ * {@code __keyspace@*__:Product:<id>}, which needs {@code notify-keyspace-events} to include {@code Kghx}
+ * (set it on the server, or let {@code products.near-cache.configure-keyspace-events=true} add the missing flags
+ * with CONFIG SET). The flags are checked with CONFIG GET on startup; when they are missing or can't be read the
+ * cache stays off, since other instances' writes would go unnoticed until {@code expire-after-write}.
+ * Hits, misses, evictions and size are published as the {@code cache.*} meters tagged {@code cache=products}.
+ * Entries are held {@link ProductCodec}-encoded: a fraction of the object graph's heap, and every hit hands out
+ * a fresh copy that callers may modify.
+ */
+@Component
+@Slf4j
+public class ProductNearCache implements MessageListener {
+
+    private static final String KEYSPACE_CHANNEL_PATTERN = "__keyspace@*__:" + ProductKeys.KEYSPACE + ":*";
+
+    private static final String NOTIFY_KEYSPACE_EVENTS = "notify-keyspace-events";
+    private static final String KEYSPACE_EVENTS = "Kghx";
+
+    private final boolean enabled;
+    private final Cache<String, byte[]> cache;
+    private final Counter remoteInvalidations;
+
+    public ProductNearCache(@Value("${products.near-cache.enabled:true}") boolean enabled,
+                            @Value("${products.near-cache.maximum-size:10000}") long maximumSize,
+                            @Value("${products.near-cache.expire-after-write:5m}") Duration expireAfterWrite,
+                            @Value("${products.near-cache.configure-keyspace-events:false}") boolean configureKeyspaceEvents,
+                            MeterRegistry meterRegistry,
+                            RedisConnectionFactory connectionFactory,
+                            RedisMessageListenerContainer listenerContainer) {
+        this.enabled = enabled && keyspaceEventsEnabled(connectionFactory, configureKeyspaceEvents);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.remoteInvalidations = Counter.builder("products.near-cache.invalidations")
+                .description("Near-cache entries invalidated by keyspace notifications")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "products");
+
+        if (this.enabled) {
+            listenerContainer.addMessageListener(this, new PatternTopic(KEYSPACE_CHANNEL_PATTERN));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Optional<Product> get(String id, Function<String, Optional<Product>> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        byte[] encoded = cache.get(id, key -> loader.apply(key).map(ProductCodec::encode).orElse(null));
+        return Optional.ofNullable(encoded).map(ProductCodec::decode);
+    }
+
+    public void invalidate(String id) {
+        cache.invalidate(id);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        String key = channel.substring(channel.indexOf(':') + 1);
+        String id = key.substring(ProductKeys.KEYSPACE.length() + 1);
+        // Index helper keys such as Product:<id>:idx or Product:categoryKey:<key> are not products
+        // asMap().remove neither counts as a hit or miss nor skips a load in flight, it waits for it and removes it
+        if (id.indexOf(':') < 0 && cache.asMap().remove(id) != null) {
+            remoteInvalidations.increment();
+        }
+    }
+
+    /**
+     * Whether the server publishes the notifications the cache relies on, after adding the missing flags to the
+     * configured ones when {@code configure} is set.
+     */
+    private static boolean keyspaceEventsEnabled(RedisConnectionFactory connectionFactory, boolean configure) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            String configured = connection.serverCommands().getConfig(NOTIFY_KEYSPACE_EVENTS)
+                    .getProperty(NOTIFY_KEYSPACE_EVENTS, "");
+            String missing = missingKeyspaceEvents(configured);
+            if (!missing.isEmpty() && configure) {
+                connection.serverCommands().setConfig(NOTIFY_KEYSPACE_EVENTS, configured + missing);
+                missing = "";
+            }
+            if (!missing.isEmpty()) {
+                log.warn("notify-keyspace-events is '{}' and lacks '{}': other instances' writes would not "
+                        + "invalidate the near-cache, so it is disabled", configured, missing);
+                return false;
+            }
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Could not check notify-keyspace-events, the near-cache is disabled: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Flags of {@code Kghx} that {@code configured} lacks; {@code A} stands for all event classes.
+     */
+    static String missingKeyspaceEvents(String configured) {
+        StringBuilder missing = new StringBuilder();
+        for (char flag : KEYSPACE_EVENTS.toCharArray()) {
+            boolean covered = configured.indexOf(flag) >= 0 || (flag != 'K' && configured.indexOf('A') >= 0);
+            if (!covered) {
+                missing.append(flag);
+            }
+        }
+        return missing.toString();
+    }
+}
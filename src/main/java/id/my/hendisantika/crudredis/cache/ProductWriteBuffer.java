@@ -0,0 +1,310 @@
+package id.my.hendisantika.crudredis.cache;
+
+import id.my.hendisantika.crudredis.model.Product;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 23.45
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Write-behind buffer for product saves, enabled with {@code products.write-behind.enabled=true}.
+ * <p>
+ * Saves are kept per id in lock-striped maps, so repeated updates of a product between two flushes coalesce
+ * into one write. A background thread hands everything buffered to the writer every {@code flush-interval},
+ * or as soon as {@code batch-size} products are pending; once {@code max-pending} is reached the saving
+ * thread flushes itself, which bounds memory when Redis can't keep up. {@link #get} serves buffered and
+ * in-flight products so by-id reads see their own writes; a batch that fails to write is put back, with the
+ * batches after it.
+ * <p>
+ * Meters: {@code products.write-behind.pending} gauge, {@code products.write-behind.flush} timer,
+ * {@code products.write-behind.batch.size} summary, {@code products.write-behind.writes} and
+ * {@code products.write-behind.coalesced} counters, and the {@code products.write-behind.coalescing.ratio} gauge.
+ */
+@Component
+@Slf4j
+public class ProductWriteBuffer {
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxPending;
+    private final Duration flushInterval;
+    private final Stripe[] stripes;
+    private final Map<String, Product> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizes;
+    private final Counter writes;
+    private final Counter coalesced;
+
+    private ScheduledExecutorService scheduler;
+    private Consumer<List<Product>> writer;
+
+    public ProductWriteBuffer(@Value("${products.write-behind.enabled:false}") boolean enabled,
+                              @Value("${products.write-behind.stripes:16}") int stripes,
+                              @Value("${products.write-behind.batch-size:500}") int batchSize,
+                              @Value("${products.write-behind.max-pending:50000}") int maxPending,
+                              @Value("${products.write-behind.flush-interval:50ms}") Duration flushInterval,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.flushInterval = flushInterval;
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+
+        this.flushTimer = Timer.builder("products.write-behind.flush")
+                .description("Time to write one flush of buffered products to Redis")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("products.write-behind.batch.size")
+                .description("Products written per flush")
+                .baseUnit("products")
+                .register(meterRegistry);
+        this.writes = Counter.builder("products.write-behind.writes")
+                .description("Product saves accepted by the write-behind buffer")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("products.write-behind.coalesced")
+                .description("Buffered saves replaced by a later save of the same product before being written")
+                .register(meterRegistry);
+        Gauge.builder("products.write-behind.pending", pending, AtomicInteger::get)
+                .description("Products buffered and not yet written")
+                .register(meterRegistry);
+        Gauge.builder("products.write-behind.coalescing.ratio", this,
+                        buffer -> buffer.writes.count() == 0 ? 0 : buffer.coalesced.count() / buffer.writes.count())
+                .description("Share of accepted saves that never reached Redis because a later save replaced them")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts the periodic flush; buffered products are handed to {@code writer} in batches of at most
+     * {@code batch-size}. Does nothing unless write-behind is enabled.
+     */
+    public void start(Consumer<List<Product>> writer) {
+        if (!enabled) {
+            return;
+        }
+        this.writer = writer;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("product-write-behind").daemon().factory());
+        long interval = flushInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Product write-behind enabled: flush every {}, batches of {}", flushInterval, batchSize);
+    }
+
+    /**
+     * Stops the periodic flush and writes whatever is still buffered.
+     */
+    public void close() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Flushing {} buffered products on shutdown", pending.get());
+        flush();
+    }
+
+    /**
+     * Buffers the product; it must already have an id.
+     */
+    public void add(Product product) {
+        Stripe stripe = stripe(product.getId());
+        boolean replaced;
+        stripe.lock.lock();
+        try {
+            replaced = stripe.products.put(product.getId(), product) != null;
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        writes.increment();
+        if (replaced) {
+            coalesced.increment();
+            return;
+        }
+        int depth = pending.incrementAndGet();
+        if (depth >= maxPending) {
+            flush();
+        } else if (depth >= batchSize && scheduler != null && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * The buffered or in-flight state of the product, or {@code null} when Redis is up to date.
+     */
+    public Product get(String id) {
+        Stripe stripe = stripe(id);
+        stripe.lock.lock();
+        try {
+            Product buffered = stripe.products.get(id);
+            if (buffered != null) {
+                return buffered;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        return inFlight.get(id);
+    }
+
+    /**
+     * Drops a buffered or in-flight save and waits for a flush in progress, so a delete that follows isn't undone
+     * by it; an in-flight save dropped here is not put back should its flush fail.
+     */
+    public void remove(String id) {
+        Stripe stripe = stripe(id);
+        stripe.lock.lock();
+        try {
+            if (stripe.products.remove(id) != null) {
+                pending.decrementAndGet();
+            }
+            inFlight.remove(id);
+        } finally {
+            stripe.lock.unlock();
+        }
+        flushLock.lock();
+        flushLock.unlock();
+    }
+
+    /**
+     * Writes the buffer now if any of the products is buffered or in flight, for operations that modify
+     * the stored hash directly and would otherwise be overwritten by an older buffered save.
+     */
+    public void flushIfPending(Collection<String> ids) {
+        if (enabled && ids.stream().anyMatch(id -> get(id) != null)) {
+            flush();
+        }
+    }
+
+    /**
+     * Hands everything buffered to the writer; concurrent flushes run one after the other.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            List<Product> drained = drain();
+            if (drained.isEmpty()) {
+                return;
+            }
+            Timer.Sample sample = Timer.start();
+            int written = 0;
+            try {
+                while (written < drained.size()) {
+                    int to = Math.min(written + batchSize, drained.size());
+                    writer.accept(drained.subList(written, to));
+                    written = to;
+                }
+                sample.stop(flushTimer);
+                batchSizes.record(drained.size());
+            } catch (RuntimeException e) {
+                // Batches already written stay written, only the failed one and those after it go back
+                requeue(drained.subList(written, drained.size()));
+                throw e;
+            } finally {
+                drained.forEach(product -> inFlight.remove(product.getId(), product));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Write-behind flush failed, {} products stay buffered", pending.get(), e);
+        }
+    }
+
+    /**
+     * Moves every buffered product to the in-flight map; readers find it in one or the other throughout.
+     */
+    private List<Product> drain() {
+        List<Product> drained = new ArrayList<>(pending.get());
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                inFlight.putAll(stripe.products);
+                drained.addAll(stripe.products.values());
+                stripe.products.clear();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        pending.addAndGet(-drained.size());
+        return drained;
+    }
+
+    /**
+     * Puts back products that weren't saved again or removed meanwhile.
+     */
+    private void requeue(List<Product> products) {
+        for (Product product : products) {
+            Stripe stripe = stripe(product.getId());
+            stripe.lock.lock();
+            try {
+                if (inFlight.get(product.getId()) == product
+                        && stripe.products.putIfAbsent(product.getId(), product) == null) {
+                    pending.incrementAndGet();
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    private Stripe stripe(String id) {
+        return stripes[Math.floorMod(id.hashCode(), stripes.length)];
+    }
+
+    private static final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Product> products = new LinkedHashMap<>();
+    }
+}
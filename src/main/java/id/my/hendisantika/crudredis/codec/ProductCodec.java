@@ -0,0 +1,190 @@
+package id.my.hendisantika.crudredis.codec;
+
+import id.my.hendisantika.crudredis.model.Product;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 19.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Compact binary layout for {@link Product}, with no field names or type information:
+ * <pre>
+ * magic      1 byte  {@link #MAGIC}, identifies the format and its version
+ * presence   1 byte  bit 0 price, bit 1 quantity, bit 2 createdAt
+ * id, name, description, category
+ *            varint (length + 1, 0 = null) followed by UTF-8 bytes
+ * price      zig-zag varint scale, then zig-zag varlong unscaled value
+ *            (unscaled values beyond 63 bits: varint length with bit 0 set, then two's-complement bytes)
+ * quantity   zig-zag varint
+ * createdAt  zig-zag varlong
+ * </pre>
+ * {@code categoryKey} is derived from the category on decode.
+ */
+public final class ProductCodec {
+
+    public static final byte MAGIC = (byte) 0xB1;
+
+    private static final int PRICE = 1;
+    private static final int QUANTITY = 1 << 1;
+    private static final int CREATED_AT = 1 << 2;
+
+    private ProductCodec() {
+    }
+
+    public static boolean isEncoded(byte[] bytes) {
+        return bytes != null && bytes.length > 0 && bytes[0] == MAGIC;
+    }
+
+    public static byte[] encode(Product product) {
+        Writer out = new Writer();
+        out.write(MAGIC);
+        out.write((product.getPrice() != null ? PRICE : 0)
+                | (product.getQuantity() != null ? QUANTITY : 0)
+                | (product.getCreatedAt() != null ? CREATED_AT : 0));
+        out.writeString(product.getId());
+        out.writeString(product.getName());
+        out.writeString(product.getDescription());
+        out.writeString(product.getCategory());
+        if (product.getPrice() != null) {
+            out.writeDecimal(product.getPrice());
+        }
+        if (product.getQuantity() != null) {
+            out.writeVarLong(zigZag(product.getQuantity()));
+        }
+        if (product.getCreatedAt() != null) {
+            out.writeVarLong(zigZag(product.getCreatedAt()));
+        }
+        return out.toByteArray();
+    }
+
+    public static Product decode(byte[] bytes) {
+        if (!isEncoded(bytes)) {
+            throw new IllegalArgumentException("Not an encoded product");
+        }
+        Reader in = new Reader(bytes, 1);
+        int presence = in.read();
+        Product product = new Product();
+        product.setId(in.readString());
+        product.setName(in.readString());
+        product.setDescription(in.readString());
+        product.setCategory(in.readString());
+        if ((presence & PRICE) != 0) {
+            product.setPrice(in.readDecimal());
+        }
+        if ((presence & QUANTITY) != 0) {
+            product.setQuantity((int) unZigZag(in.readVarLong()));
+        }
+        if ((presence & CREATED_AT) != 0) {
+            product.setCreatedAt(unZigZag(in.readVarLong()));
+        }
+        return product;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Writer extends ByteArrayOutputStream {
+
+        private Writer() {
+            super(64);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length + 1L);
+            writeBytes(utf8);
+        }
+
+        void writeDecimal(BigDecimal value) {
+            writeVarLong(zigZag(value.scale()));
+            BigInteger unscaled = value.unscaledValue();
+            if (unscaled.bitLength() < 63) {
+                writeVarLong(zigZag(unscaled.longValue()) << 1);
+            } else {
+                byte[] big = unscaled.toByteArray();
+                writeVarLong(((long) big.length << 1) | 1);
+                writeBytes(big);
+            }
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] bytes;
+        private int position;
+
+        private Reader(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        int read() {
+            return bytes[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = read();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        String readString() {
+            int length = (int) readVarLong() - 1;
+            if (length < 0) {
+                return null;
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        BigDecimal readDecimal() {
+            int scale = (int) unZigZag(readVarLong());
+            long header = readVarLong();
+            if ((header & 1) == 0) {
+                return BigDecimal.valueOf(unZigZag(header >>> 1), scale);
+            }
+            int length = (int) (header >>> 1);
+            byte[] big = new byte[length];
+            System.arraycopy(bytes, position, big, 0, length);
+            position += length;
+            return new BigDecimal(new BigInteger(big), scale);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package id.my.hendisantika.crudredis.codec;
+
+import id.my.hendisantika.crudredis.model.Product;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 19.30
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * {@link RedisSerializer} for Product values in the {@link ProductCodec} layout. Rejects values without the
+ * codec's magic byte, so whoever holds data in another format must check {@link ProductCodec#isEncoded} first.
+ */
+public class ProductRedisSerializer implements RedisSerializer<Product> {
+
+    @Override
+    public byte[] serialize(Product product) throws SerializationException {
+        return product == null ? null : ProductCodec.encode(product);
+    }
+
+    @Override
+    public Product deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            return ProductCodec.decode(bytes);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Could not decode product", e);
+        }
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return Product.class;
+    }
+}
@@ -1,13 +1,20 @@
 package id.my.hendisantika.crudredis.config;
 
 import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.scheduler.JobLeases;
 import id.my.hendisantika.crudredis.service.ProductService;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Created by IntelliJ IDEA.
@@ -22,68 +29,97 @@ import java.math.BigDecimal;
  */
 
 /**
- * Data initializer to populate Redis with sample products
+ * Data initializer to populate Redis with sample products.
+ * <p>
+ * Runs once the application is ready, on the task executor, so startup doesn't wait for Redis round trips; the
+ * first requests may see an empty catalog for a moment. Instances starting together seed only once, under the
+ * {@code sample-data} lease. Disable with {@code products.sample-data.enabled=false}.
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
-public class DataInitializer implements CommandLineRunner {
+public class DataInitializer {
 
     private final ProductService productService;
+    private final JobLeases jobLeases;
+    private final Executor executor;
+    private final boolean enabled;
+
+    public DataInitializer(ProductService productService, JobLeases jobLeases,
+                           @Qualifier("applicationTaskExecutor") Executor executor,
+                           @Value("${products.sample-data.enabled:true}") boolean enabled) {
+        this.productService = productService;
+        this.jobLeases = jobLeases;
+        this.executor = executor;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeInBackground() {
+        if (!enabled) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                jobLeases.runAsLeader("sample-data", Duration.ofMinutes(1), lease -> initialize());
+            } catch (RuntimeException e) {
+                log.warn("Initializing sample products failed: {}", e.getMessage());
+            }
+        });
+    }
 
-    @Override
-    public void run(String... args) {
+    private void initialize() {
         log.info("Initializing sample products...");
 
-        // Check if products already exist
-        if (!productService.getAllProducts().isEmpty()) {
+        // Check if products already exist (a single EXISTS, no product is read)
+        if (!productService.isEmpty()) {
             log.info("Products already exist in database. Skipping initialization.");
             return;
         }
 
-        // Create 10 dummy products
-        createProduct("Apple MacBook Pro 16\"", "Powerful laptop with M3 Max chip, 36GB RAM, and 1TB SSD",
-                "Electronics", new BigDecimal("2999.99"), 15);
+        // Create 10 dummy products, saved together in one pipelined round trip
+        List<Product> products = new ArrayList<>();
+        products.add(createProduct("Apple MacBook Pro 16\"", "Powerful laptop with M3 Max chip, 36GB RAM, and 1TB SSD",
+                "Electronics", new BigDecimal("2999.99"), 15));
 
-        createProduct("Nike Air Jordan 1", "Classic basketball shoes with premium leather and iconic design",
-                "Clothing", new BigDecimal("179.99"), 45);
+        products.add(createProduct("Nike Air Jordan 1", "Classic basketball shoes with premium leather and iconic design",
+                "Clothing", new BigDecimal("179.99"), 45));
 
-        createProduct("Organic Green Tea", "Premium Japanese matcha green tea, 100g pack",
-                "Food", new BigDecimal("24.99"), 120);
+        products.add(createProduct("Organic Green Tea", "Premium Japanese matcha green tea, 100g pack",
+                "Food", new BigDecimal("24.99"), 120));
 
-        createProduct("The Art of War - Sun Tzu", "Ancient Chinese military treatise and strategy guide",
-                "Books", new BigDecimal("12.99"), 78);
+        products.add(createProduct("The Art of War - Sun Tzu", "Ancient Chinese military treatise and strategy guide",
+                "Books", new BigDecimal("12.99"), 78));
 
-        createProduct("LEGO Star Wars Millennium Falcon", "Ultimate collector's edition with 7,541 pieces",
-                "Toys", new BigDecimal("849.99"), 8);
+        products.add(createProduct("LEGO Star Wars Millennium Falcon", "Ultimate collector's edition with 7,541 pieces",
+                "Toys", new BigDecimal("849.99"), 8));
 
-        createProduct("Wilson Tennis Racket Pro", "Professional-grade carbon fiber tennis racket",
-                "Sports", new BigDecimal("249.99"), 22);
+        products.add(createProduct("Wilson Tennis Racket Pro", "Professional-grade carbon fiber tennis racket",
+                "Sports", new BigDecimal("249.99"), 22));
 
-        createProduct("Dyson V15 Vacuum Cleaner", "Cordless stick vacuum with laser dust detection",
-                "Home", new BigDecimal("649.99"), 12);
+        products.add(createProduct("Dyson V15 Vacuum Cleaner", "Cordless stick vacuum with laser dust detection",
+                "Home", new BigDecimal("649.99"), 12));
 
-        createProduct("Samsung Galaxy S24 Ultra", "Flagship smartphone with 200MP camera and S Pen",
-                "Electronics", new BigDecimal("1299.99"), 35);
+        products.add(createProduct("Samsung Galaxy S24 Ultra", "Flagship smartphone with 200MP camera and S Pen",
+                "Electronics", new BigDecimal("1299.99"), 35));
 
-        createProduct("Instant Pot Duo 7-in-1", "Multi-functional pressure cooker and air fryer combo",
-                "Home", new BigDecimal("99.99"), 56);
+        products.add(createProduct("Instant Pot Duo 7-in-1", "Multi-functional pressure cooker and air fryer combo",
+                "Home", new BigDecimal("99.99"), 56));
 
-        createProduct("Yoga Mat Premium", "Non-slip eco-friendly yoga mat with carrying strap",
-                "Sports", new BigDecimal("39.99"), 89);
+        products.add(createProduct("Yoga Mat Premium", "Non-slip eco-friendly yoga mat with carrying strap",
+                "Sports", new BigDecimal("39.99"), 89));
 
-        log.info("Successfully initialized 10 sample products!");
+        productService.saveProducts(products)
+                .forEach(saved -> log.info("Created product: {} (ID: {})", saved.getName(), saved.getId()));
+        log.info("Successfully initialized {} sample products!", products.size());
     }
 
-    private void createProduct(String name, String description, String category, BigDecimal price, Integer quantity) {
+    private Product createProduct(String name, String description, String category, BigDecimal price, Integer quantity) {
         Product product = new Product();
         product.setName(name);
         product.setDescription(description);
         product.setCategory(category);
         product.setPrice(price);
         product.setQuantity(quantity);
-
-        Product saved = productService.saveProduct(product);
-        log.info("Created product: {} (ID: {})", saved.getName(), saved.getId());
+        return product;
     }
 }
@@ -0,0 +1,63 @@
+package id.my.hendisantika.crudredis.config;
+
+import io.lettuce.core.ReadFrom;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 16.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Non-blocking Lettuce connection for the {@code reactive} profile. A single multiplexed connection
+ * serves all reactive reads; the pooled factory in {@link RedisConfig} stays the primary connection factory.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveRedisConfig {
+
+    @Value("${spring.data.redis.ssl.enabled:false}")
+    private boolean sslEnabled;
+
+    /**
+     * Follows the same topology as the primary factory. Everything read through it is a lookup, listing or search,
+     * so it reads from replicas when {@code products.redis.read-from} says so.
+     */
+    @Bean
+    public LettuceConnectionFactory lettuceConnectionFactory(RedisTopology redisTopology,
+                                                             RedisClientProperties clientProperties) {
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder builder = LettuceClientConfiguration.builder()
+                .commandTimeout(clientProperties.getReadTimeout());
+        if (redisTopology.getMode() != RedisTopology.Mode.STANDALONE) {
+            builder.readFrom(switch (clientProperties.getReadFrom()) {
+                case PRIMARY -> ReadFrom.UPSTREAM;
+                case REPLICA_PREFERRED -> ReadFrom.REPLICA_PREFERRED;
+                case REPLICA -> ReadFrom.REPLICA;
+            });
+        }
+        if (sslEnabled) {
+            builder.useSsl();
+        }
+
+        return new LettuceConnectionFactory(redisTopology.configuration(), builder.build());
+    }
+
+    @Bean
+    public ReactiveStringRedisTemplate reactiveStringRedisTemplate(LettuceConnectionFactory lettuceConnectionFactory) {
+        return new ReactiveStringRedisTemplate((ReactiveRedisConnectionFactory) lettuceConnectionFactory);
+    }
+}
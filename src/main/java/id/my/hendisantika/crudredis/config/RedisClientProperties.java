@@ -0,0 +1,100 @@
+package id.my.hendisantika.crudredis.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 15.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Redis client tuning: connection pool, socket timeouts, TLS session reuse and replica reads.
+ */
+@Data
+@ConfigurationProperties(prefix = "products.redis")
+public class RedisClientProperties {
+
+    /**
+     * Timeout for establishing a connection (TCP + TLS handshake).
+     */
+    private Duration connectTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Socket read timeout for a single command.
+     */
+    private Duration readTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Where lookups, listings and searches are read from on Sentinel or Cluster; see {@link ReplicaRedisTemplate}.
+     * Ignored for a single server.
+     */
+    private ReadFrom readFrom = ReadFrom.PRIMARY;
+
+    /**
+     * How often the cluster topology is re-read, on top of the refreshes MOVED redirects and reconnects trigger.
+     */
+    private Duration clusterRefreshPeriod = Duration.ofSeconds(30);
+
+    private Pool pool = new Pool();
+
+    private Ssl ssl = new Ssl();
+
+    public enum ReadFrom {
+        PRIMARY, REPLICA_PREFERRED, REPLICA
+    }
+
+    @Data
+    public static class Pool {
+
+        /**
+         * Maximum connections, idle and borrowed. Size it to the number of threads
+         * that talk to Redis concurrently.
+         */
+        private int maxTotal = 64;
+
+        private int maxIdle = 64;
+
+        /**
+         * Connections kept open when idle, so bursts don't pay the TLS handshake.
+         */
+        private int minIdle = 8;
+
+        /**
+         * How long a borrow waits for a free connection before failing.
+         */
+        private Duration maxWait = Duration.ofSeconds(2);
+
+        /**
+         * Interval of the idle-connection evictor, which also refills up to {@link #minIdle}.
+         */
+        private Duration timeBetweenEvictionRuns = Duration.ofSeconds(30);
+
+        private Duration minEvictableIdleDuration = Duration.ofMinutes(5);
+
+        /**
+         * PING idle connections during eviction runs so dead ones are replaced before they are borrowed.
+         */
+        private boolean testWhileIdle = true;
+    }
+
+    @Data
+    public static class Ssl {
+
+        /**
+         * TLS sessions cached for resumption, so new pool connections skip the full handshake.
+         */
+        private int sessionCacheSize = 256;
+
+        private Duration sessionTimeout = Duration.ofHours(12);
+    }
+}
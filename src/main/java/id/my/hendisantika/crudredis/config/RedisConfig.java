@@ -1,18 +1,45 @@
 package id.my.hendisantika.crudredis.config;
 
+import id.my.hendisantika.crudredis.metrics.RedisCommandMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.commonspool2.CommonsObjectPool2Metrics;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.repository.configuration.EnableRedisRepositories;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.util.StringUtils;
 
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import java.security.GeneralSecurityException;
+
 /**
  * Created by IntelliJ IDEA.
  * Project : spring-boot-crud-redis
@@ -30,49 +57,94 @@ import org.springframework.util.StringUtils;
  */
 @Configuration
 @EnableRedisRepositories(basePackages = "id.my.hendisantika.crudredis.repository")
+@EnableConfigurationProperties(RedisClientProperties.class)
 public class RedisConfig {
 
-    @Value("${spring.data.redis.host}")
-    private String redisHost;
-
-    @Value("${spring.data.redis.port}")
-    private int redisPort;
-
-    @Value("${spring.data.redis.username:#{null}}")
-    private String redisUsername;
-
-    @Value("${spring.data.redis.password:#{null}}")
-    private String redisPassword;
-
     @Value("${spring.data.redis.ssl.enabled:false}")
     private boolean sslEnabled;
 
+    /**
+     * Jedis pool for a single server. Sentinel and Cluster connect through Lettuce, which pipelines against a
+     * cluster (Spring Data's Jedis cluster connection can't) and is what routes reads to replicas.
+     */
     @Bean
-    public JedisConnectionFactory jedisConnectionFactory() {
-        RedisStandaloneConfiguration redisStandaloneConfiguration = new RedisStandaloneConfiguration();
-        redisStandaloneConfiguration.setHostName(redisHost);
-        redisStandaloneConfiguration.setPort(redisPort);
-
-        // Set username if provided (for Upstash Redis 6+ with ACL)
-        if (StringUtils.hasText(redisUsername)) {
-            redisStandaloneConfiguration.setUsername(redisUsername);
+    @Primary
+    public RedisConnectionFactory redisConnectionFactory(RedisTopology redisTopology,
+                                                         RedisClientProperties clientProperties,
+                                                         MeterRegistry meterRegistry,
+                                                         RedisCommandMetrics redisCommandMetrics) {
+        Counter borrowFailures = borrowFailures(meterRegistry);
+        if (redisTopology.getMode() != RedisTopology.Mode.STANDALONE) {
+            return lettuceConnectionFactory(redisTopology, clientProperties, ReadFrom.UPSTREAM,
+                    borrowFailures, redisCommandMetrics);
         }
 
-        // Set password if provided (for Upstash or secured Redis)
-        if (StringUtils.hasText(redisPassword)) {
-            redisStandaloneConfiguration.setPassword(redisPassword);
-        }
-
-        // Build JedisClientConfiguration with SSL support if enabled
-        JedisClientConfiguration.JedisClientConfigurationBuilder builder = JedisClientConfiguration.builder();
+        // Build JedisClientConfiguration with pooling, timeouts and SSL support if enabled
+        JedisClientConfiguration.JedisClientConfigurationBuilder builder = JedisClientConfiguration.builder()
+                .connectTimeout(clientProperties.getConnectTimeout())
+                .readTimeout(clientProperties.getReadTimeout());
+        builder.usePooling().poolConfig(poolConfig(clientProperties.getPool()));
 
         if (sslEnabled) {
-            builder.useSsl();
+            builder.useSsl().sslSocketFactory(sslSocketFactory(clientProperties.getSsl()));
         }
 
         JedisClientConfiguration jedisClientConfiguration = builder.build();
+        return new JedisConnectionFactory(redisTopology.standalone(), jedisClientConfiguration) {
+            @Override
+            public RedisConnection getConnection() {
+                try {
+                    return redisCommandMetrics.instrument(super.getConnection());
+                } catch (RuntimeException e) {
+                    borrowFailures.increment();
+                    throw e;
+                }
+            }
+        };
+    }
+
+    /**
+     * Second Lettuce client reading from replicas, only with Sentinel or Cluster and
+     * {@code products.redis.read-from} other than {@code primary}.
+     */
+    @Bean
+    @Conditional(ReplicaReadsCondition.class)
+    public LettuceConnectionFactory replicaConnectionFactory(RedisTopology redisTopology,
+                                                             RedisClientProperties clientProperties,
+                                                             MeterRegistry meterRegistry,
+                                                             RedisCommandMetrics redisCommandMetrics) {
+        ReadFrom readFrom = clientProperties.getReadFrom() == RedisClientProperties.ReadFrom.REPLICA
+                ? ReadFrom.REPLICA : ReadFrom.REPLICA_PREFERRED;
+        return lettuceConnectionFactory(redisTopology, clientProperties, readFrom,
+                borrowFailures(meterRegistry), redisCommandMetrics);
+    }
+
+    /**
+     * Declared here because {@link #replicaRedisTemplate} would otherwise make Spring Boot back off its own.
+     */
+    @Bean
+    @Primary
+    public StringRedisTemplate stringRedisTemplate(RedisConnectionFactory connectionFactory) {
+        return new StringRedisTemplate(connectionFactory);
+    }
 
-        return new JedisConnectionFactory(redisStandaloneConfiguration, jedisClientConfiguration);
+    @Bean
+    public ReplicaRedisTemplate replicaRedisTemplate(
+            RedisConnectionFactory connectionFactory,
+            @Qualifier("replicaConnectionFactory") ObjectProvider<RedisConnectionFactory> replicaConnectionFactory) {
+        RedisConnectionFactory replicas = replicaConnectionFactory.getIfAvailable();
+        return replicas != null
+                ? new ReplicaRedisTemplate(replicas, true)
+                : new ReplicaRedisTemplate(connectionFactory, false);
+    }
+
+    /**
+     * Publishes the connection pools' JMX statistics (active, idle, waiters, borrow wait time, ...)
+     * as {@code commons.pool2.*} meters.
+     */
+    @Bean
+    public CommonsObjectPool2Metrics commonsObjectPool2Metrics() {
+        return new CommonsObjectPool2Metrics();
     }
 
     @Bean
@@ -87,4 +159,102 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    private LettuceConnectionFactory lettuceConnectionFactory(RedisTopology redisTopology,
+                                                              RedisClientProperties clientProperties,
+                                                              ReadFrom readFrom, Counter borrowFailures,
+                                                              RedisCommandMetrics redisCommandMetrics) {
+        SocketOptions socketOptions = SocketOptions.builder()
+                .connectTimeout(clientProperties.getConnectTimeout())
+                .build();
+        // Follow failovers and resharding instead of waiting for MOVED redirects on every moved slot
+        ClientOptions clientOptions = redisTopology.isCluster()
+                ? ClusterClientOptions.builder()
+                .socketOptions(socketOptions)
+                .topologyRefreshOptions(ClusterTopologyRefreshOptions.builder()
+                        .enablePeriodicRefresh(clientProperties.getClusterRefreshPeriod())
+                        .enableAllAdaptiveRefreshTriggers()
+                        .build())
+                .build()
+                : ClientOptions.builder().socketOptions(socketOptions).build();
+
+        LettucePoolingClientConfiguration.LettucePoolingClientConfigurationBuilder builder =
+                LettucePoolingClientConfiguration.builder()
+                        .poolConfig(poolConfig(clientProperties.getPool()))
+                        .commandTimeout(clientProperties.getReadTimeout())
+                        .clientOptions(clientOptions)
+                        .readFrom(readFrom);
+        if (sslEnabled) {
+            builder.useSsl();
+        }
+
+        return new LettuceConnectionFactory(redisTopology.configuration(), builder.build()) {
+            @Override
+            public RedisConnection getConnection() {
+                try {
+                    return redisCommandMetrics.instrument(super.getConnection());
+                } catch (RuntimeException e) {
+                    borrowFailures.increment();
+                    throw e;
+                }
+            }
+        };
+    }
+
+    private static Counter borrowFailures(MeterRegistry meterRegistry) {
+        return Counter.builder("redis.pool.borrow.failures")
+                .description("Connections that could not be borrowed from the Redis connection pool")
+                .register(meterRegistry);
+    }
+
+    private static <T> GenericObjectPoolConfig<T> poolConfig(RedisClientProperties.Pool pool) {
+        GenericObjectPoolConfig<T> poolConfig = new GenericObjectPoolConfig<>();
+        poolConfig.setMaxTotal(pool.getMaxTotal());
+        poolConfig.setMaxIdle(pool.getMaxIdle());
+        poolConfig.setMinIdle(pool.getMinIdle());
+        poolConfig.setMaxWait(pool.getMaxWait());
+        poolConfig.setTimeBetweenEvictionRuns(pool.getTimeBetweenEvictionRuns());
+        poolConfig.setMinEvictableIdleDuration(pool.getMinEvictableIdleDuration());
+        poolConfig.setTestWhileIdle(pool.isTestWhileIdle());
+        poolConfig.setJmxEnabled(true);
+        poolConfig.setJmxNamePrefix("redis");
+        return poolConfig;
+    }
+
+    /**
+     * Replica reads need replicas: Sentinel or Cluster, and a {@code products.redis.read-from} other than primary.
+     */
+    static class ReplicaReadsCondition implements Condition {
+
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            Environment environment = context.getEnvironment();
+            boolean replicated = StringUtils.hasText(environment.getProperty("spring.data.redis.cluster.nodes"))
+                    || StringUtils.hasText(environment.getProperty("spring.data.redis.sentinel.master"));
+            String readFrom = environment.getProperty("products.redis.read-from", "primary");
+            return replicated && !readFrom.trim().equalsIgnoreCase("primary");
+        }
+    }
+
+    /**
+     * One shared SSLContext for every pool connection, so reconnects resume cached TLS sessions.
+     */
+    private static SSLSocketFactory sslSocketFactory(RedisClientProperties.Ssl ssl) {
+        try {
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, null, null);
+            sslContext.getClientSessionContext().setSessionCacheSize(ssl.getSessionCacheSize());
+            sslContext.getClientSessionContext().setSessionTimeout((int) ssl.getSessionTimeout().toSeconds());
+            return sslContext.getSocketFactory();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not initialise the Redis TLS context", e);
+        }
+    }
 }
@@ -0,0 +1,73 @@
+package id.my.hendisantika.crudredis.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 18.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Warns about pool settings that turn virtual threads into pool waits.
+ * With virtual threads Tomcat no longer caps concurrency at its 200 worker threads, so the Jedis pool's
+ * {@code max-total} becomes the real limit on concurrent Redis calls and {@code max-wait} decides how long
+ * the excess queues.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RedisPoolSizingCheck {
+
+    /**
+     * Tomcat's default worker thread count, the concurrency the pool was effectively sized against before.
+     */
+    private static final int PLATFORM_THREAD_CONCURRENCY = 200;
+
+    private final RedisClientProperties clientProperties;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${products.repository.fetch-parallelism:1}")
+    private int fetchParallelism;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkPoolSizing() {
+        RedisClientProperties.Pool pool = clientProperties.getPool();
+        if (!virtualThreads) {
+            if (fetchParallelism > 1) {
+                log.warn("products.repository.fetch-parallelism={} runs on platform threads; "
+                        + "enable spring.threads.virtual.enabled for cheap fan-out", fetchParallelism);
+            }
+            return;
+        }
+
+        log.info("Virtual threads enabled: at most {} concurrent Redis calls, excess waits up to {} for a connection",
+                pool.getMaxTotal(), pool.getMaxWait());
+        if (pool.getMaxWait().isNegative() || pool.getMaxWait().isZero()) {
+            log.warn("products.redis.pool.max-wait is unbounded; with virtual threads a load spike queues on the "
+                    + "pool indefinitely instead of failing fast");
+        }
+        if (pool.getMaxTotal() < PLATFORM_THREAD_CONCURRENCY / 2) {
+            log.warn("products.redis.pool.max-total={} is far below the {} requests platform threads allowed; "
+                    + "watch commons.pool2.num.waiters and raise it if requests queue on the pool",
+                    pool.getMaxTotal(), PLATFORM_THREAD_CONCURRENCY);
+        }
+        if (fetchParallelism > pool.getMaxTotal() / 4) {
+            log.warn("products.repository.fetch-parallelism={} lets a few bulk reads hold most of the {} pooled "
+                    + "connections", fetchParallelism, pool.getMaxTotal());
+        }
+    }
+}
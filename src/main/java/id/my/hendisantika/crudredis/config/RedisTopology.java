@@ -0,0 +1,120 @@
+package id.my.hendisantika.crudredis.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConfiguration;
+import org.springframework.data.redis.connection.RedisSentinelConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 12.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * The Redis deployment the application talks to, read from Spring Boot's own properties: a cluster when
+ * {@code spring.data.redis.cluster.nodes} is set, Sentinel when {@code spring.data.redis.sentinel.master} is set,
+ * and the single server at {@code spring.data.redis.host} otherwise.
+ */
+@Component
+public class RedisTopology {
+
+    public enum Mode {
+        STANDALONE, SENTINEL, CLUSTER
+    }
+
+    @Value("${spring.data.redis.host:localhost}")
+    private String redisHost;
+
+    @Value("${spring.data.redis.port:6379}")
+    private int redisPort;
+
+    @Value("${spring.data.redis.username:#{null}}")
+    private String redisUsername;
+
+    @Value("${spring.data.redis.password:#{null}}")
+    private String redisPassword;
+
+    @Value("${spring.data.redis.cluster.nodes:}")
+    private String[] clusterNodes;
+
+    @Value("${spring.data.redis.cluster.max-redirects:3}")
+    private int clusterMaxRedirects;
+
+    @Value("${spring.data.redis.sentinel.master:}")
+    private String sentinelMaster;
+
+    @Value("${spring.data.redis.sentinel.nodes:}")
+    private String[] sentinelNodes;
+
+    @Value("${spring.data.redis.sentinel.password:#{null}}")
+    private String sentinelPassword;
+
+    public Mode getMode() {
+        if (!nodes(clusterNodes).isEmpty()) {
+            return Mode.CLUSTER;
+        }
+        if (StringUtils.hasText(sentinelMaster)) {
+            return Mode.SENTINEL;
+        }
+        return Mode.STANDALONE;
+    }
+
+    public boolean isCluster() {
+        return getMode() == Mode.CLUSTER;
+    }
+
+    /**
+     * Connection settings for the topology in use, with the configured credentials.
+     */
+    public RedisConfiguration configuration() {
+        return switch (getMode()) {
+            case STANDALONE -> standalone();
+            case SENTINEL -> {
+                RedisSentinelConfiguration sentinel =
+                        new RedisSentinelConfiguration(sentinelMaster, new LinkedHashSet<>(nodes(sentinelNodes)));
+                if (StringUtils.hasText(sentinelPassword)) {
+                    sentinel.setSentinelPassword(sentinelPassword);
+                }
+                yield withCredentials(sentinel);
+            }
+            case CLUSTER -> {
+                RedisClusterConfiguration cluster = new RedisClusterConfiguration(nodes(clusterNodes));
+                cluster.setMaxRedirects(clusterMaxRedirects);
+                yield withCredentials(cluster);
+            }
+        };
+    }
+
+    public RedisStandaloneConfiguration standalone() {
+        return withCredentials(new RedisStandaloneConfiguration(redisHost, redisPort));
+    }
+
+    private <T extends RedisConfiguration.WithAuthentication> T withCredentials(T configuration) {
+        // Username for Redis 6+ ACLs (Upstash), password for Upstash or any secured Redis
+        if (StringUtils.hasText(redisUsername)) {
+            configuration.setUsername(redisUsername);
+        }
+        if (StringUtils.hasText(redisPassword)) {
+            configuration.setPassword(redisPassword);
+        }
+        return configuration;
+    }
+
+    private static List<String> nodes(String[] nodes) {
+        return Arrays.stream(nodes).map(String::trim).filter(StringUtils::hasText).toList();
+    }
+}
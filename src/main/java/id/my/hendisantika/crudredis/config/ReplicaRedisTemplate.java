@@ -0,0 +1,39 @@
+package id.my.hendisantika.crudredis.config;
+
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 12.10
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * String template for reads that may lag the primary by the replication delay: product lookups, listings and
+ * searches. Bound to replicas when {@code products.redis.read-from} selects them on Sentinel or Cluster, and to
+ * the primary connection factory otherwise. Writes, and reads a write is computed from, use the primary
+ * {@code StringRedisTemplate}.
+ */
+public class ReplicaRedisTemplate extends StringRedisTemplate {
+
+    private final boolean replicas;
+
+    public ReplicaRedisTemplate(RedisConnectionFactory connectionFactory, boolean replicas) {
+        super(connectionFactory);
+        this.replicas = replicas;
+    }
+
+    /**
+     * Whether reads through this template go to replicas, i.e. may return less than the primary already holds.
+     */
+    public boolean readsReplicas() {
+        return replicas;
+    }
+}
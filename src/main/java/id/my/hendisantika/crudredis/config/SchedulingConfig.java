@@ -0,0 +1,26 @@
+package id.my.hendisantika.crudredis.config;
+
+import id.my.hendisantika.crudredis.retention.ProductRetentionProperties;
+import id.my.hendisantika.crudredis.scheduler.JobLeaseProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 10.45
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Settings of the scheduled maintenance jobs.
+ */
+@Configuration
+@EnableConfigurationProperties({ProductRetentionProperties.class, JobLeaseProperties.class})
+public class SchedulingConfig {
+}
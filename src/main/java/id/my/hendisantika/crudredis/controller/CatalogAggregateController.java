@@ -0,0 +1,46 @@
+package id.my.hendisantika.crudredis.controller;
+
+import id.my.hendisantika.crudredis.model.CatalogAggregates;
+import id.my.hendisantika.crudredis.service.ProductService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 15.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Per-category catalog figures: a page for people, JSON for dashboards ({@code Accept: application/json}).
+ */
+@Controller
+@RequestMapping("/products/aggregates")
+@RequiredArgsConstructor
+public class CatalogAggregateController {
+
+    private final ProductService productService;
+
+    @GetMapping
+    public String viewAggregates(Model model) {
+        model.addAttribute("aggregates", productService.getCatalogAggregates());
+        return "products/aggregates";
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public CatalogAggregates getAggregates() {
+        return productService.getCatalogAggregates();
+    }
+}
@@ -0,0 +1,67 @@
+package id.my.hendisantika.crudredis.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 17.45
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Hands the rows of a streamed page to {@code th:each} and flushes the response before the first row and every
+ * {@code interval} rows after, i.e. before the next pipelined batch is fetched, so the browser renders what is
+ * already written while Redis is being read.
+ */
+final class FlushingIterator<T> implements Iterator<T> {
+
+    private final Iterator<T> rows;
+    private final HttpServletResponse response;
+    private final int interval;
+    private int count;
+    private boolean flushed;
+
+    FlushingIterator(Iterator<T> rows, HttpServletResponse response, int interval) {
+        this.rows = rows;
+        this.response = response;
+        this.interval = Math.max(1, interval);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!flushed && count % interval == 0) {
+            flush();
+        }
+        return rows.hasNext();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        count++;
+        flushed = false;
+        return rows.next();
+    }
+
+    private void flush() {
+        flushed = true;
+        try {
+            response.flushBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Client went away while streaming the products page", e);
+        }
+    }
+}
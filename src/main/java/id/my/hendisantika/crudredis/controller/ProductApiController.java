@@ -0,0 +1,136 @@
+package id.my.hendisantika.crudredis.controller;
+
+import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.service.ReactiveProductService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 17.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * JSON API for products, available with the {@code reactive} profile.
+ * Handlers return {@link Flux}/{@link Mono}, so request threads are released while Redis replies are pending.
+ */
+@RestController
+@RequestMapping("/api/products")
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ProductApiController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final ReactiveProductService reactiveProductService;
+
+    /**
+     * Tagged with the catalog version, unless read from replicas; a matching {@code If-None-Match} gets a 304
+     * without reading products.
+     */
+    @GetMapping
+    public Mono<ResponseEntity<List<Product>>> listProducts(@RequestParam(required = false) String search,
+                                                            @RequestParam(required = false) String category,
+                                                            @RequestParam(defaultValue = "20") int limit,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                            String ifNoneMatch) {
+        return reactiveProductService.getCatalogVersion()
+                .map(version -> Optional.of(ProductEtags.catalog(version)))
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(etag -> {
+                    if (etag.isPresent() && ProductEtags.matches(ifNoneMatch, etag.get())) {
+                        return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag.get())
+                                .<List<Product>>build());
+                    }
+                    return findProducts(search, category, limit).collectList().map(products -> {
+                        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+                        etag.ifPresent(ok::eTag);
+                        return ok.body(products);
+                    });
+                });
+    }
+
+    @GetMapping("/count")
+    public Mono<Long> countProducts() {
+        return reactiveProductService.countProducts();
+    }
+
+    /**
+     * Tagged with the product's version; a matching {@code If-None-Match} gets a 304 without reading the hash.
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Product>> getProduct(@PathVariable String id,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                    String ifNoneMatch) {
+        return reactiveProductService.getProductVersion(id)
+                .map(version -> Optional.of(ProductEtags.product(version)))
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(etag -> {
+                    if (etag.isPresent() && ProductEtags.matches(ifNoneMatch, etag.get())) {
+                        return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag.get()).<Product>build());
+                    }
+                    return reactiveProductService.getProductById(id).map(product -> {
+                        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+                        etag.ifPresent(ok::eTag);
+                        return ok.body(product);
+                    });
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    private Flux<Product> findProducts(String search, String category, int limit) {
+        if (search != null && !search.isEmpty()) {
+            return reactiveProductService.searchProductsByName(search);
+        }
+        if (category != null && !category.isEmpty()) {
+            return reactiveProductService.getProductsByCategory(category);
+        }
+        return reactiveProductService.getLatestProducts(Math.clamp(limit, 1, MAX_LIMIT));
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Product> createProduct(@Valid @RequestBody Product product) {
+        product.setId(null);
+        return reactiveProductService.saveProduct(product);
+    }
+
+    @PutMapping("/{id}")
+    public Mono<Product> updateProduct(@PathVariable String id, @Valid @RequestBody Product product) {
+        product.setId(id);
+        return reactiveProductService.saveProduct(product);
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> deleteProduct(@PathVariable String id) {
+        return reactiveProductService.deleteProduct(id);
+    }
+}
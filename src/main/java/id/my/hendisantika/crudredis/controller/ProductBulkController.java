@@ -0,0 +1,74 @@
+package id.my.hendisantika.crudredis.controller;
+
+import id.my.hendisantika.crudredis.bulk.ProductBulkService;
+import id.my.hendisantika.crudredis.bulk.ProductImportResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 22.30
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Bulk import and export of the catalog as NDJSON (one product per line) or CSV.
+ * Request and response bodies are streamed, so their size is not bounded by memory.
+ */
+@RestController
+@RequestMapping("/products/bulk")
+@RequiredArgsConstructor
+public class ProductBulkController {
+
+    private static final String TEXT_CSV = "text/csv";
+
+    private final ProductBulkService productBulkService;
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ProductImportResult importNdjson(InputStream body) throws IOException {
+        return productBulkService.importNdjson(body);
+    }
+
+    @PostMapping(value = "/import", consumes = TEXT_CSV)
+    public ProductImportResult importCsv(InputStream body) throws IOException {
+        try {
+            return productBulkService.importCsv(body);
+        } catch (IllegalArgumentException e) {
+            // Only the header can fail the whole import, bad records are reported in the result
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format) {
+        if ("csv".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.csv\"")
+                    .contentType(MediaType.parseMediaType(TEXT_CSV))
+                    .body(productBulkService::exportCsv);
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.ndjson\"")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(productBulkService::exportNdjson);
+    }
+}
@@ -0,0 +1,111 @@
+package id.my.hendisantika.crudredis.controller;
+
+import id.my.hendisantika.crudredis.feed.ProductChangeFeed;
+import id.my.hendisantika.crudredis.feed.ProductChangeListener;
+import id.my.hendisantika.crudredis.model.ProductChange;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 16.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * The product change feed as Server-Sent Events. Browsers reconnecting with {@code Last-Event-ID} resume where
+ * they stopped; {@code group} and {@code consumer} share the changes between the consumers of a group instead.
+ */
+@RestController
+@RequestMapping("/products/changes")
+@RequiredArgsConstructor
+public class ProductChangeController {
+
+    private final ProductChangeFeed productChangeFeed;
+
+    @Value("${products.changes.emitter-timeout:30m}")
+    private Duration emitterTimeout;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                    @RequestParam(required = false) String from,
+                                    @RequestParam(required = false) String group,
+                                    @RequestParam(required = false) String consumer,
+                                    HttpServletResponse response) {
+        if (!productChangeFeed.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "The product change feed is disabled");
+        }
+        if (group != null && (consumer == null || consumer.isBlank())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A consumer group needs a consumer name");
+        }
+        // nginx would otherwise hold events back until its proxy buffer fills
+        response.setHeader("X-Accel-Buffering", "no");
+
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        ProductChangeListener listener = new EmitterListener(emitter);
+        ProductChangeFeed.Subscription subscription;
+        try {
+            subscription = group == null
+                    ? productChangeFeed.subscribe(listener, lastEventId != null ? lastEventId : from)
+                    : productChangeFeed.subscribe(listener, group, consumer, from);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+        try {
+            // Commits the response, so the client sees the stream open before the first change
+            emitter.send(SseEmitter.event().comment("connected"));
+        } catch (IOException e) {
+            subscription.cancel();
+        }
+        return emitter;
+    }
+
+    /**
+     * Sends each change as an event named after its operation, with the stream id as event id.
+     */
+    private record EmitterListener(SseEmitter emitter) implements ProductChangeListener {
+
+        @Override
+        public void onChange(String streamId, ProductChange change) throws IOException {
+            emitter.send(SseEmitter.event().id(streamId).name(change.op()).data(change, MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void onReset(String firstId) throws IOException {
+            emitter.send(SseEmitter.event().name("reset")
+                    .data("Changes before " + firstId + " are no longer kept, reload the products"));
+        }
+
+        @Override
+        public void onIdle() throws IOException {
+            emitter.send(SseEmitter.event().comment("keep-alive"));
+        }
+
+        @Override
+        public void onFailure(Exception cause) {
+            emitter.completeWithError(cause);
+        }
+    }
+}
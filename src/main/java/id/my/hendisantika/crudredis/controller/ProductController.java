@@ -1,10 +1,14 @@
 package id.my.hendisantika.crudredis.controller;
 
 import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.model.ProductPage;
+import id.my.hendisantika.crudredis.model.StreamedProductPage;
 import id.my.hendisantika.crudredis.service.ProductService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -13,9 +17,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.OptionalLong;
 
 /**
  * Created by IntelliJ IDEA.
@@ -38,21 +45,106 @@ import java.util.List;
 @Slf4j
 public class ProductController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ProductService productService;
 
+    @Value("${products.list.streaming.enabled:false}")
+    private boolean streaming;
+
+    @Value("${products.list.streaming.max-page-size:1000}")
+    private int maxStreamingPageSize;
+
+    @Value("${products.repository.pipeline-batch-size:200}")
+    private int flushInterval;
+
+    /**
+     * Any listing is current as long as the catalog version is, so a matching {@code If-None-Match} is answered
+     * with 304 before the indexes or hashes are read. Search and filtered listings are not tagged while the catalog
+     * projection, which lags the version, serves them.
+     * <p>
+     * With {@code products.list.streaming.enabled=true} the unfiltered listing is streamed: its rows are fetched one
+     * pipelined batch at a time while the table renders, and what is rendered is flushed before each batch.
+     */
     @GetMapping
-    public String listProducts(Model model, @RequestParam(required = false) String search) {
-        List<Product> products;
+    public String listProducts(Model model, WebRequest request, HttpServletResponse response,
+                               @RequestParam(required = false) String search,
+                               @RequestParam(required = false) String after,
+                               @RequestParam(required = false) String before,
+                               @RequestParam(defaultValue = "20") int size,
+                               @RequestParam(required = false) BigDecimal minPrice,
+                               @RequestParam(required = false) BigDecimal maxPrice,
+                               @RequestParam(required = false) Integer lowStock,
+                               @RequestParam(required = false) String sort,
+                               @RequestParam(defaultValue = "0") int offset) {
+        boolean filtered = (search != null && !search.isEmpty()) || minPrice != null || maxPrice != null
+                || lowStock != null || (sort != null && !sort.isEmpty());
+        OptionalLong version = filtered
+                ? productService.getFilteredCatalogVersion()
+                : productService.getCatalogVersion();
+        if (version.isPresent() && ProductEtags.notModified(request, model, ProductEtags.catalog(version.getAsLong()))) {
+            return null;
+        }
+        int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
         if (search != null && !search.isEmpty()) {
-            products = productService.searchProductsByName(search);
+            List<Product> products = productService.searchProductsByName(search);
             model.addAttribute("search", search);
+            model.addAttribute("products", products);
+            model.addAttribute("totalProducts", products.size());
+        } else if (minPrice != null || maxPrice != null || lowStock != null || (sort != null && !sort.isEmpty())) {
+            listRange(model, minPrice, maxPrice, lowStock, sort, Math.max(0, offset), pageSize);
+        } else if (streaming) {
+            StreamedProductPage page = productService.streamProductPage(after, before,
+                    Math.clamp(size, 1, maxStreamingPageSize));
+            // Keep nginx from buffering the page until it is complete
+            response.setHeader("X-Accel-Buffering", "no");
+            model.addAttribute("page", page);
+            model.addAttribute("products", new FlushingIterator<>(page.products().iterator(), response, flushInterval));
+            model.addAttribute("totalProducts", page.total());
         } else {
-            products = productService.getAllProducts();
+            ProductPage page = productService.getProductPage(after, before, pageSize);
+            model.addAttribute("page", page);
+            model.addAttribute("products", page.products());
+            model.addAttribute("totalProducts", page.total());
         }
-        model.addAttribute("products", products);
         return "products/list";
     }
 
+    /**
+     * Filtered and sorted listing served from the price or quantity index, paged by offset.
+     * A low-stock filter combined with price bounds, or sorted by price, pages the intersection of both indexes.
+     */
+    private void listRange(Model model, BigDecimal minPrice, BigDecimal maxPrice, Integer lowStock, String sort,
+                           int offset, int size) {
+        boolean descending = sort != null && sort.endsWith("_desc");
+        boolean byQuantity = (sort != null && !sort.isEmpty()) ? sort.startsWith("quantity") : lowStock != null;
+        boolean priceBounded = minPrice != null || maxPrice != null;
+        Integer maxQuantity = lowStock != null ? lowStock - 1 : null;
+        List<Product> products;
+        long total;
+        if (byQuantity && !priceBounded) {
+            products = productService.getProductsByQuantity(null, maxQuantity, descending, offset, size);
+            total = productService.countProductsByQuantity(null, maxQuantity);
+        } else if (!byQuantity && lowStock == null) {
+            products = productService.getProductsByPrice(minPrice, maxPrice, descending, offset, size);
+            total = productService.countProductsByPrice(minPrice, maxPrice);
+        } else {
+            products = productService.getProductsByPriceAndQuantity(minPrice, maxPrice, null, maxQuantity,
+                    byQuantity, descending, offset, size);
+            total = productService.countProductsByPriceAndQuantity(minPrice, maxPrice, null, maxQuantity);
+        }
+
+        model.addAttribute("products", products);
+        model.addAttribute("totalProducts", total);
+        model.addAttribute("minPrice", minPrice);
+        model.addAttribute("maxPrice", maxPrice);
+        model.addAttribute("lowStock", lowStock);
+        model.addAttribute("sort", sort);
+        model.addAttribute("filtered", true);
+        model.addAttribute("previousOffset", offset > 0 ? Math.max(0, offset - size) : null);
+        model.addAttribute("nextOffset", offset + size < total ? offset + size : null);
+    }
+
     @GetMapping("/new")
     public String showCreateForm(Model model) {
         model.addAttribute("product", new Product());
@@ -114,7 +206,12 @@ public class ProductController {
     }
 
     @GetMapping("/view/{id}")
-    public String viewProduct(@PathVariable String id, Model model, RedirectAttributes redirectAttributes) {
+    public String viewProduct(@PathVariable String id, Model model, WebRequest request,
+                              RedirectAttributes redirectAttributes) {
+        OptionalLong version = productService.getProductVersion(id);
+        if (version.isPresent() && ProductEtags.notModified(request, model, ProductEtags.product(version.getAsLong()))) {
+            return null;
+        }
         return productService.getProductById(id)
                 .map(product -> {
                     model.addAttribute("product", product);
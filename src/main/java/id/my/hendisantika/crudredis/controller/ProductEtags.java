@@ -0,0 +1,55 @@
+package id.my.hendisantika.crudredis.controller;
+
+import org.springframework.http.ETag;
+import org.springframework.ui.Model;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 13.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Strong ETags from the product and catalog version counters, checked before anything is loaded or rendered.
+ */
+final class ProductEtags {
+
+    private ProductEtags() {
+    }
+
+    static String product(long version) {
+        return "\"product-" + version + "\"";
+    }
+
+    static String catalog(long version) {
+        return "\"catalog-" + version + "\"";
+    }
+
+    /**
+     * Sets the ETag and tells whether the client's copy is current, in which case the handler returns
+     * {@code null} and a 304 goes out. Pages showing flash attributes are one-off and never validated.
+     *
+     * @param model the handler's model, holding only the flash attributes when called first thing
+     */
+    static boolean notModified(WebRequest request, Model model, String etag) {
+        return model.asMap().isEmpty() && request.checkNotModified(etag);
+    }
+
+    /**
+     * Weak comparison against {@code If-None-Match}, as a GET's conditional request calls for.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        ETag current = ETag.create(etag);
+        return ETag.parse(ifNoneMatch).stream().anyMatch(tag -> tag.isWildcard() || tag.compare(current, false));
+    }
+}
@@ -0,0 +1,37 @@
+package id.my.hendisantika.crudredis.exception;
+
+import lombok.Getter;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 23.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * A stock adjustment that was refused; nothing was changed.
+ */
+@Getter
+public class StockException extends RuntimeException {
+
+    public enum Reason {
+        PRODUCT_NOT_FOUND,
+        INSUFFICIENT_STOCK,
+        INSUFFICIENT_RESERVED
+    }
+
+    private final String productId;
+    private final Reason reason;
+
+    public StockException(String productId, Reason reason) {
+        super(reason + " for product " + productId);
+        this.productId = productId;
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,472 @@
+package id.my.hendisantika.crudredis.feed;
+
+import id.my.hendisantika.crudredis.index.ProductKeys;
+import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.model.ProductChange;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 15.45
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Product change feed on the Redis Stream {@code products:changes}: every save, delete and stock change appends a
+ * {@link ProductChange} with XADD, trimmed with {@code MAXLEN ~ products.changes.max-length}, so clients follow
+ * the catalog incrementally instead of polling full listings.
+ * <p>
+ * Subscriptions come in two kinds. A plain one gets every change after the stream id it resumes from, read with
+ * XRANGE, then the live ones; {@link ProductChangeListener#onReset} tells it when changes it missed were already
+ * trimmed. A consumer-group one shares the changes with the other consumers of its group (XREADGROUP), each change
+ * being acknowledged once delivered; on subscribing again under the same consumer name it first gets what was
+ * delivered but never acknowledged.
+ * <p>
+ * One thread per instance tails the stream with a blocking XREAD and hands new entries to the subscriptions;
+ * group subscriptions then read their share without blocking, so subscribers don't hold Redis connections while
+ * idle. Listeners are called on the task executor, each subscription's in order and one at a time, never on the
+ * reader thread, so a slow listener holds up only its own subscription. Subscriptions that got nothing for
+ * {@code products.changes.heartbeat} are told so, for keep-alives.
+ */
+@Component
+@Slf4j
+public class ProductChangeFeed {
+
+    private static final Pattern RECORD_ID = Pattern.compile("\\d+-\\d+");
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Executor executor;
+    private final boolean enabled;
+    private final long maxLength;
+    private final int batchSize;
+    private final Duration pollTimeout;
+    private final Duration heartbeat;
+    private final int subscriberBuffer;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean reading = new AtomicBoolean();
+
+    private volatile boolean closed;
+    private ExecutorService reader;
+
+    public ProductChangeFeed(StringRedisTemplate stringRedisTemplate,
+                             @Qualifier("applicationTaskExecutor") Executor executor,
+                             @Value("${products.changes.enabled:true}") boolean enabled,
+                             @Value("${products.changes.max-length:100000}") long maxLength,
+                             @Value("${products.changes.batch-size:200}") int batchSize,
+                             @Value("${products.changes.poll-timeout:2s}") Duration pollTimeout,
+                             @Value("${products.changes.heartbeat:15s}") Duration heartbeat,
+                             @Value("${products.changes.subscriber-buffer:1000}") int subscriberBuffer) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.maxLength = maxLength;
+        this.batchSize = batchSize;
+        this.pollTimeout = pollTimeout;
+        this.heartbeat = heartbeat;
+        this.subscriberBuffer = subscriberBuffer;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records that the product was created or changed. Only issues a write, so it may run inside a pipeline.
+     */
+    public void saved(Product product) {
+        append(ProductChange.upsert(product));
+    }
+
+    /**
+     * Records that the product was removed. Only issues a write, so it may run inside a pipeline.
+     */
+    public void deleted(String id) {
+        append(ProductChange.delete(id));
+    }
+
+    /**
+     * Id of the newest entry, {@code 0-0} while the stream is empty: subscribing from it gets every change made
+     * after this call.
+     */
+    public String latestId() {
+        List<MapRecord<String, String, String>> latest =
+                stream().reverseRange(ProductKeys.changes(), Range.unbounded(), Limit.limit().count(1));
+        return latest == null || latest.isEmpty() ? "0-0" : latest.getFirst().getId().getValue();
+    }
+
+    /**
+     * Delivers every change after the stream id {@code from}, or from now on without one.
+     *
+     * @throws IllegalArgumentException if {@code from} isn't a stream id
+     */
+    public Subscription subscribe(ProductChangeListener listener, String from) {
+        return start(new TailSubscriber(listener, parse(from == null ? latestId() : from)));
+    }
+
+    /**
+     * Delivers the changes consumer group {@code group} hands to {@code consumer}. A group that doesn't exist yet
+     * starts after the stream id {@code from}, or at the end of the feed without one.
+     *
+     * @throws IllegalArgumentException if {@code from} isn't a stream id
+     */
+    public Subscription subscribe(ProductChangeListener listener, String group, String consumer, String from) {
+        createGroup(group, from == null ? ReadOffset.latest() : ReadOffset.from(parse(from)));
+        return start(new GroupSubscriber(listener, Consumer.from(group, consumer)));
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        if (reader != null) {
+            reader.shutdownNow();
+        }
+        subscribers.clear();
+    }
+
+    private void append(ProductChange change) {
+        if (!enabled) {
+            return;
+        }
+        stream().add(MapRecord.create(ProductKeys.changes(), change.toFields()),
+                XAddOptions.maxlen(maxLength).approximateTrimming(true));
+    }
+
+    private Subscription start(Subscriber subscriber) {
+        subscribers.add(subscriber);
+        if (reading.compareAndSet(false, true)) {
+            reader = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("product-change-feed").daemon().factory());
+            reader.execute(this::tail);
+        }
+        subscriber.schedule();
+        return subscriber;
+    }
+
+    /**
+     * The reader thread: blocks on XREAD for new entries and hands them to every subscription.
+     */
+    private void tail() {
+        RecordId last = RecordId.of(latestId());
+        while (!closed) {
+            try {
+                List<MapRecord<String, String, String>> records = stream().read(
+                        StreamReadOptions.empty().count(batchSize).block(pollTimeout),
+                        StreamOffset.create(ProductKeys.changes(), ReadOffset.from(last)));
+                if (records != null && !records.isEmpty()) {
+                    last = records.getLast().getId();
+                    subscribers.forEach(subscriber -> subscriber.appended(records));
+                }
+                subscribers.forEach(Subscriber::idle);
+            } catch (RuntimeException e) {
+                if (closed) {
+                    return;
+                }
+                log.warn("Reading the product change feed failed, retrying: {}", e.getMessage());
+                pause();
+            }
+        }
+    }
+
+    private RecordId firstId() {
+        List<MapRecord<String, String, String>> first =
+                stream().range(ProductKeys.changes(), Range.unbounded(), Limit.limit().count(1));
+        return first == null || first.isEmpty() ? null : first.getFirst().getId();
+    }
+
+    private void createGroup(String group, ReadOffset start) {
+        byte[] key = ProductKeys.changes().getBytes(StandardCharsets.UTF_8);
+        try {
+            stringRedisTemplate.execute((RedisCallback<String>) connection ->
+                    connection.streamCommands().xGroupCreate(key, group, start, true));
+        } catch (DataAccessException e) {
+            // BUSYGROUP: the group exists and keeps its position
+            if (!String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage()).contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    private StreamOperations<String, String, String> stream() {
+        return stringRedisTemplate.opsForStream();
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(pollTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closed = true;
+        }
+    }
+
+    private static RecordId parse(String id) {
+        if (!RECORD_ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Not a stream id: " + id);
+        }
+        return RecordId.of(id);
+    }
+
+    static int compare(RecordId left, RecordId right) {
+        int byTime = Long.compare(left.getTimestamp(), right.getTimestamp());
+        return byTime != 0 ? byTime : Long.compare(left.getSequence(), right.getSequence());
+    }
+
+    /**
+     * An active subscription; cancel it once the listener is gone.
+     */
+    public interface Subscription {
+
+        void cancel();
+    }
+
+    private abstract class Subscriber implements Subscription {
+
+        final ProductChangeListener listener;
+        private final AtomicBoolean requested = new AtomicBoolean();
+        private final AtomicBoolean running = new AtomicBoolean();
+        private volatile boolean cancelled;
+        private volatile long lastDelivery = System.nanoTime();
+
+        Subscriber(ProductChangeListener listener) {
+            this.listener = listener;
+        }
+
+        /**
+         * Delivers what the subscription hasn't got yet, catching up first. Runs on the executor, one run at a time.
+         */
+        abstract void drain() throws Exception;
+
+        /**
+         * New entries read by the reader thread, which must not wait for the listener.
+         */
+        abstract void appended(List<MapRecord<String, String, String>> records);
+
+        /**
+         * Has {@link #drain} run on the executor; a request made while it runs makes it run again afterwards.
+         */
+        void schedule() {
+            requested.set(true);
+            if (!cancelled && running.compareAndSet(false, true)) {
+                executor.execute(this::run);
+            }
+        }
+
+        private void run() {
+            try {
+                while (requested.getAndSet(false) && !cancelled) {
+                    drain();
+                    if (System.nanoTime() - lastDelivery >= heartbeat.toNanos()) {
+                        listener.onIdle();
+                        lastDelivery = System.nanoTime();
+                    }
+                }
+            } catch (Exception e) {
+                fail(e);
+            } finally {
+                running.set(false);
+            }
+            // Requested after the last check, while still marked as running
+            if (requested.get()) {
+                schedule();
+            }
+        }
+
+        void deliver(MapRecord<String, String, String> record) throws Exception {
+            listener.onChange(record.getId().getValue(), ProductChange.fromFields(record.getValue()));
+            lastDelivery = System.nanoTime();
+        }
+
+        void idle() {
+            if (System.nanoTime() - lastDelivery >= heartbeat.toNanos()) {
+                schedule();
+            }
+        }
+
+        void fail(Exception cause) {
+            log.debug("Ending change feed subscription: {}", cause.getMessage());
+            cancel();
+            listener.onFailure(cause);
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscribers.remove(this);
+        }
+    }
+
+    /**
+     * Live entries wait in a queue of at most {@code products.changes.subscriber-buffer}. A listener too slow to
+     * keep up overflows it; the queue is then dropped and the subscription reads the entries back from the stream
+     * with XRANGE, as it does when catching up, so a slow listener costs only itself.
+     */
+    private final class TailSubscriber extends Subscriber {
+
+        private final Deque<MapRecord<String, String, String>> queued = new ArrayDeque<>();
+
+        /**
+         * Whether entries after {@link #lastDelivered} have to be read from the stream: at first, and after the
+         * queue overflowed.
+         */
+        private boolean rereading = true;
+
+        private RecordId lastDelivered;
+
+        TailSubscriber(ProductChangeListener listener, RecordId after) {
+            super(listener);
+            this.lastDelivered = after;
+        }
+
+        @Override
+        void appended(List<MapRecord<String, String, String>> records) {
+            synchronized (this) {
+                if (queued.size() + records.size() > subscriberBuffer) {
+                    queued.clear();
+                    rereading = true;
+                } else {
+                    queued.addAll(records);
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        void drain() throws Exception {
+            boolean reread;
+            List<MapRecord<String, String, String>> live;
+            synchronized (this) {
+                reread = rereading;
+                rereading = false;
+                live = new ArrayList<>(queued);
+                queued.clear();
+            }
+            if (reread) {
+                readBack();
+            }
+            deliverNewer(live);
+        }
+
+        /**
+         * Delivers every entry after the last one delivered, from the stream.
+         */
+        private void readBack() throws Exception {
+            RecordId first = firstId();
+            if (first != null && compare(lastDelivered, first) < 0) {
+                listener.onReset(first.getValue());
+            }
+            List<MapRecord<String, String, String>> page;
+            do {
+                page = stream().range(ProductKeys.changes(),
+                        Range.of(Range.Bound.exclusive(lastDelivered.getValue()), Range.Bound.unbounded()),
+                        Limit.limit().count(batchSize));
+                deliverNewer(page);
+            } while (page.size() == batchSize);
+        }
+
+        private void deliverNewer(List<MapRecord<String, String, String>> records) throws Exception {
+            for (MapRecord<String, String, String> record : records) {
+                if (compare(record.getId(), lastDelivered) > 0) {
+                    deliver(record);
+                    lastDelivered = record.getId();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads its share itself with XREADGROUP whenever new entries arrive, so nothing is queued for it.
+     */
+    private final class GroupSubscriber extends Subscriber {
+
+        private final Consumer consumer;
+        private boolean caughtUp;
+
+        GroupSubscriber(ProductChangeListener listener, Consumer consumer) {
+            super(listener);
+            this.consumer = consumer;
+        }
+
+        @Override
+        void appended(List<MapRecord<String, String, String>> records) {
+            schedule();
+        }
+
+        @Override
+        void drain() throws Exception {
+            if (!caughtUp) {
+                // This consumer's pending entries: delivered before, never acknowledged
+                read(ReadOffset.from("0-0"));
+                caughtUp = true;
+            }
+            read(ReadOffset.lastConsumed());
+        }
+
+        private void read(ReadOffset offset) throws Exception {
+            ReadOffset next = offset;
+            List<MapRecord<String, String, String>> records;
+            do {
+                records = stream().read(consumer, StreamReadOptions.empty().count(batchSize),
+                        StreamOffset.create(ProductKeys.changes(), next));
+                if (records == null || records.isEmpty()) {
+                    return;
+                }
+                List<RecordId> delivered = new ArrayList<>(records.size());
+                try {
+                    for (MapRecord<String, String, String> record : records) {
+                        // A pending entry trimmed from the stream comes back without fields, only acknowledge it
+                        if (!record.getValue().isEmpty()) {
+                            deliver(record);
+                        }
+                        delivered.add(record.getId());
+                    }
+                } finally {
+                    if (!delivered.isEmpty()) {
+                        stream().acknowledge(ProductKeys.changes(), consumer.getGroup(),
+                                delivered.toArray(RecordId[]::new));
+                    }
+                }
+                // Past the first page of pending entries, read on from the last one; new entries always come with '>'
+                if (!ReadOffset.lastConsumed().equals(offset)) {
+                    next = ReadOffset.from(records.getLast().getId());
+                }
+            } while (records.size() == batchSize);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package id.my.hendisantika.crudredis.feed;
+
+import id.my.hendisantika.crudredis.model.ProductChange;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 16.30
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Receives the entries of {@link ProductChangeFeed}, one at a time and in stream order. Throwing from a callback
+ * ends the subscription and is reported to {@link #onFailure}.
+ */
+public interface ProductChangeListener {
+
+    /**
+     * @param streamId the entry's stream id, to resume after it
+     */
+    void onChange(String streamId, ProductChange change) throws Exception;
+
+    /**
+     * Entries after the resume point were trimmed from the stream before they could be delivered; everything up to
+     * {@code firstId} has to be reloaded from the products themselves.
+     */
+    default void onReset(String firstId) throws Exception {
+    }
+
+    /**
+     * Nothing was delivered for {@code products.changes.heartbeat}.
+     */
+    default void onIdle() throws Exception {
+    }
+
+    /**
+     * The subscription ended because a callback or a read of the stream failed.
+     */
+    default void onFailure(Exception cause) {
+    }
+}
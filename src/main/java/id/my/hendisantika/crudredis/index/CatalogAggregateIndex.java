@@ -0,0 +1,251 @@
+package id.my.hendisantika.crudredis.index;
+
+import id.my.hendisantika.crudredis.config.ReplicaRedisTemplate;
+import id.my.hendisantika.crudredis.model.CatalogAggregates;
+import id.my.hendisantika.crudredis.model.CategoryAggregate;
+import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.scheduler.Lease;
+import id.my.hendisantika.crudredis.scheduler.SlotPartition;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 14.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Per-category product count, units in stock and inventory value, kept in three hashes keyed by category
+ * ({@code products:{aggregates}:count}, {@code :units}, {@code :value} in cents). Every write applies the
+ * difference between the product's old and new contribution with {@code scripts/aggregate-apply.lua}, one
+ * atomic EVAL, so reading the figures costs three HGETALLs of one field per category instead of a scan of
+ * the catalog.
+ * <p>
+ * Deltas computed from a stale {@code previous} (two instances saving the same product at once) leave the
+ * totals off; {@link CatalogAggregateReconciler} recounts and corrects them. The index rebuild doesn't replay
+ * products into it but {@link #replace}s the totals with its own recount.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogAggregateIndex implements ProductIndex {
+
+    private static final byte[] APPLY_SOURCE =
+            bytes(RedisScript.of(new ClassPathResource("scripts/aggregate-apply.lua")).getScriptAsString());
+    private static final byte[] REPLACE_SOURCE =
+            bytes(RedisScript.of(new ClassPathResource("scripts/aggregate-replace.lua")).getScriptAsString());
+    private static final byte[] RECOUNT_SOURCE =
+            bytes(RedisScript.of(new ClassPathResource("scripts/aggregate-recount.lua")).getScriptAsString());
+
+    private static final List<String> KEYS = List.of(
+            ProductKeys.aggregates("count"), ProductKeys.aggregates("units"), ProductKeys.aggregates("value"));
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ReplicaRedisTemplate replicaRedisTemplate;
+
+    @Override
+    public void onSave(Product previous, Product current) {
+        CategoryAggregate added = CategoryAggregate.of(current);
+        if (previous == null) {
+            apply(List.of(added));
+            return;
+        }
+        CategoryAggregate removed = CategoryAggregate.of(previous);
+        if (removed.category().equals(added.category())) {
+            apply(List.of(added.minus(removed)));
+        } else {
+            apply(List.of(CategoryAggregate.empty(removed.category()).minus(removed), added));
+        }
+    }
+
+    @Override
+    public void onDelete(Product previous) {
+        // Bulk deletes pass a bare product for ids that were already gone, nothing was counted for them
+        if (previous.getName() == null) {
+            return;
+        }
+        CategoryAggregate removed = CategoryAggregate.of(previous);
+        apply(List.of(CategoryAggregate.empty(removed.category()).minus(removed)));
+    }
+
+    @Override
+    public void clear() {
+        stringRedisTemplate.unlink(KEYS);
+    }
+
+    /**
+     * Adds the deltas to the stored totals in one step; deltas that change nothing are skipped.
+     * <p>
+     * Sent as a plain EVAL rather than EVALSHA: inside a pipeline a NOSCRIPT from a cold script cache only comes
+     * back when the pipeline is closed, after the writes around it have landed, too late to fall back to EVAL.
+     */
+    public void apply(Collection<CategoryAggregate> deltas) {
+        List<CategoryAggregate> changes = deltas.stream().filter(delta -> !delta.isEmpty()).toList();
+        if (!changes.isEmpty()) {
+            eval(APPLY_SOURCE, KEYS, args(List.of(), changes));
+        }
+    }
+
+    /**
+     * Adds the deltas like {@link #apply(Collection)} on behalf of a job, only while its lease is still held:
+     * the script compares the lease key with the lease before writing. The lease must share the totals' hash
+     * tag, i.e. belong to a job named {@code aggregates}, for the script to reach it in a cluster.
+     *
+     * @return whether the deltas were applied
+     */
+    public boolean apply(Collection<CategoryAggregate> deltas, Lease lease) {
+        List<CategoryAggregate> changes = deltas.stream().filter(delta -> !delta.isEmpty()).toList();
+        List<String> keys = new ArrayList<>(KEYS);
+        keys.add(lease.key());
+        if (changes.isEmpty()) {
+            return true;
+        }
+        Object result = eval(APPLY_SOURCE, keys, args(List.of(lease.value()), changes));
+        return !(result instanceof Long code && code < 0);
+    }
+
+    /**
+     * Replaces the stored totals with a recount in one step. Unlike the deltas of {@link #onSave}, writing
+     * absolute totals gives the same result however often it runs, which is what the index rebuild needs.
+     */
+    public void replace(Collection<CategoryAggregate> totals) {
+        eval(REPLACE_SOURCE, KEYS, args(List.of(), List.copyOf(totals)));
+    }
+
+    /**
+     * Stores what one partition of the reconciliation recounted, fenced by its lease like
+     * {@link #apply(Collection, Lease)}, and counts the pass.
+     *
+     * @return the partition's pass number, or empty if the lease was lost and nothing was stored
+     */
+    public OptionalLong storeRecount(SlotPartition partition, Collection<CategoryAggregate> recount, Lease lease) {
+        List<byte[]> args = new ArrayList<>();
+        args.add(bytes(lease.value()));
+        args.add(bytes(partition.count() + ":" + partition.index()));
+        for (CategoryAggregate aggregate : recount) {
+            args.add(bytes(aggregate.category()));
+            args.add(bytes(aggregate.products() + ":" + aggregate.units() + ":" + cents(aggregate)));
+        }
+        Object pass = eval(RECOUNT_SOURCE, List.of(ProductKeys.aggregateRecount(partition.count(), partition.index()),
+                ProductKeys.aggregateRecounts(), lease.key()), args);
+        return pass instanceof Long number && number >= 0 ? OptionalLong.of(number) : OptionalLong.empty();
+    }
+
+    /**
+     * The latest recount stored by every partition, summed per category, read from the primary.
+     *
+     * @return empty while some partition has never stored one
+     */
+    public Optional<PartitionedRecount> recount(int partitions) {
+        Map<String, String> passes = stringRedisTemplate.<String, String>opsForHash().entries(ProductKeys.aggregateRecounts());
+        List<Long> partitionPasses = new ArrayList<>(partitions);
+        Map<String, CategoryAggregate> totals = new HashMap<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            String pass = passes.get(partitions + ":" + partition);
+            if (pass == null) {
+                return Optional.empty();
+            }
+            partitionPasses.add(Long.parseLong(pass));
+            stringRedisTemplate.<String, String>opsForHash()
+                    .entries(ProductKeys.aggregateRecount(partitions, partition))
+                    .forEach((category, figures) -> {
+                        String[] parts = figures.split(":");
+                        totals.merge(category, new CategoryAggregate(category, Long.parseLong(parts[0]),
+                                Long.parseLong(parts[1]), BigDecimal.valueOf(Long.parseLong(parts[2]), 2)),
+                                CategoryAggregate::plus);
+                    });
+        }
+        return Optional.of(new PartitionedRecount(totals, partitionPasses));
+    }
+
+    private static List<byte[]> args(List<String> leading, List<CategoryAggregate> aggregates) {
+        List<byte[]> args = new ArrayList<>();
+        leading.forEach(arg -> args.add(bytes(arg)));
+        for (CategoryAggregate aggregate : aggregates) {
+            args.add(bytes(aggregate.category()));
+            args.add(bytes(String.valueOf(aggregate.products())));
+            args.add(bytes(String.valueOf(aggregate.units())));
+            args.add(bytes(String.valueOf(cents(aggregate))));
+        }
+        return args;
+    }
+
+    private Object eval(byte[] source, List<String> keys, List<byte[]> args) {
+        List<byte[]> keysAndArgs = new ArrayList<>();
+        keys.forEach(key -> keysAndArgs.add(bytes(key)));
+        keysAndArgs.addAll(args);
+        return stringRedisTemplate.execute((RedisCallback<Object>) connection -> connection.scriptingCommands()
+                .eval(source, ReturnType.INTEGER, keys.size(), keysAndArgs.toArray(byte[][]::new)));
+    }
+
+    private static long cents(CategoryAggregate aggregate) {
+        return aggregate.value().movePointRight(2).longValueExact();
+    }
+
+    /**
+     * The stored totals, from a replica when replica reads are enabled.
+     */
+    public CatalogAggregates current() {
+        return read(replicaRedisTemplate);
+    }
+
+    /**
+     * The stored totals as the primary has them, for comparing against a recount.
+     */
+    public CatalogAggregates currentOnPrimary() {
+        return read(stringRedisTemplate);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static CatalogAggregates read(StringRedisTemplate template) {
+        Map<String, String> counts = template.<String, String>opsForHash().entries(KEYS.get(0));
+        Map<String, String> units = template.<String, String>opsForHash().entries(KEYS.get(1));
+        Map<String, String> values = template.<String, String>opsForHash().entries(KEYS.get(2));
+
+        Set<String> categories = new HashSet<>(counts.keySet());
+        categories.addAll(units.keySet());
+        categories.addAll(values.keySet());
+        return CatalogAggregates.of(categories.stream()
+                .map(category -> new CategoryAggregate(category,
+                        Long.parseLong(counts.getOrDefault(category, "0")),
+                        Long.parseLong(units.getOrDefault(category, "0")),
+                        BigDecimal.valueOf(Long.parseLong(values.getOrDefault(category, "0")), 2)))
+                .toList());
+    }
+
+    /**
+     * The recounts of all partitions of the reconciliation, summed.
+     *
+     * @param totals per category key
+     * @param passes the pass number of each partition's recount, by partition; a partition that recounted again
+     *               since has a greater one
+     */
+    public record PartitionedRecount(Map<String, CategoryAggregate> totals, List<Long> passes) {
+    }
+}
@@ -0,0 +1,184 @@
+package id.my.hendisantika.crudredis.index;
+
+import id.my.hendisantika.crudredis.model.CatalogAggregates;
+import id.my.hendisantika.crudredis.model.CategoryAggregate;
+import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.repository.ProductRepository;
+import id.my.hendisantika.crudredis.scheduler.JobLeases;
+import id.my.hendisantika.crudredis.scheduler.Lease;
+import id.my.hendisantika.crudredis.scheduler.SlotPartition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 14.30
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Recounts the catalog aggregates and corrects drift in {@link CatalogAggregateIndex}.
+ * <p>
+ * The recount is split into {@code products.aggregates.reconcile-partitions} hash-slot ranges shared among the
+ * instances, see {@link JobLeases#runPartitioned}. A partition walks the product ids with SSCAN and pipelined
+ * HGETALLs only the products whose hash is in its slots, a batch at a time (from a replica when replica reads
+ * are enabled), holding one running total per category, and stores its recount next to the totals.
+ * <p>
+ * The holder of partition 0 then sums the latest recount of every partition and compares it with the stored
+ * totals. Drift is logged, and the number of drifting categories is the {@code products.aggregates.drift} gauge.
+ * Writes made during the passes, and ids SSCAN returns twice, show up as drift that isn't real, so a category is
+ * only corrected once two comparisons in a row found the same drift, with every partition recounted in between.
+ * The correction is applied as a delta through the same script as regular writes, so updates landing meanwhile
+ * are kept.
+ * <p>
+ * The job is named {@code aggregates}, so its partition leases share the hash tag of the totals and the
+ * scripts storing a recount or a correction check the lease before writing: an instance paused past its lease
+ * can't write a stale recount or apply a correction twice.
+ */
+@Component
+@ConditionalOnProperty(prefix = "products.aggregates", name = "reconcile-enabled", havingValue = "true",
+        matchIfMissing = true)
+@Slf4j
+public class CatalogAggregateReconciler {
+
+    private static final String JOB = "aggregates";
+
+    private final ProductRepository productRepository;
+    private final CatalogAggregateIndex catalogAggregateIndex;
+    private final JobLeases jobLeases;
+    private final Duration interval;
+    private final int partitions;
+    private final AtomicInteger drifting = new AtomicInteger();
+    private final Counter corrections;
+
+    /**
+     * Drift found by the previous comparison, per category.
+     */
+    private Map<String, CategoryAggregate> previousDrift = Map.of();
+
+    /**
+     * Pass numbers of the partition recounts the previous comparison summed.
+     */
+    private List<Long> previousPasses = List.of();
+
+    public CatalogAggregateReconciler(ProductRepository productRepository, CatalogAggregateIndex catalogAggregateIndex,
+                                      JobLeases jobLeases, MeterRegistry meterRegistry,
+                                      @Value("${products.aggregates.reconcile-interval:PT15M}") Duration interval,
+                                      @Value("${products.aggregates.reconcile-partitions:4}") int partitions) {
+        this.productRepository = productRepository;
+        this.catalogAggregateIndex = catalogAggregateIndex;
+        this.jobLeases = jobLeases;
+        this.interval = interval;
+        this.partitions = partitions;
+        meterRegistry.gauge("products.aggregates.drift", drifting);
+        this.corrections = Counter.builder("products.aggregates.corrections")
+                .description("Category aggregates corrected by the reconciliation job")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${products.aggregates.reconcile-interval:PT15M}",
+            initialDelayString = "${products.aggregates.reconcile-interval:PT15M}")
+    public void reconcile() {
+        jobLeases.runPartitioned(JOB, partitions, interval.multipliedBy(3), this::reconcile);
+    }
+
+    private void reconcile(SlotPartition partition, Lease lease) {
+        Map<String, CategoryAggregate> recount = new HashMap<>();
+        try (Stream<Product> stream = productRepository.replicaReads()
+                .streamAll(id -> partition.contains(ProductKeys.hash(id)))) {
+            stream.map(CategoryAggregate::of)
+                    .forEach(contribution -> recount.merge(contribution.category(), contribution, CategoryAggregate::plus));
+        }
+        if (catalogAggregateIndex.storeRecount(partition, recount.values(), lease).isEmpty()) {
+            log.warn("Lost lease {} (fencing token {}), dropped its recount", lease.name(), lease.token());
+            return;
+        }
+        if (partition.index() == 0) {
+            compare(lease);
+        }
+    }
+
+    private void compare(Lease lease) {
+        Optional<CatalogAggregateIndex.PartitionedRecount> stored = catalogAggregateIndex.recount(partitions);
+        if (stored.isEmpty()) {
+            log.debug("Not every partition has recounted the catalog aggregates yet");
+            return;
+        }
+        CatalogAggregateIndex.PartitionedRecount recount = stored.get();
+
+        Map<String, CategoryAggregate> drift = drift(recount.totals(), catalogAggregateIndex.currentOnPrimary());
+        drifting.set(drift.size());
+        if (drift.isEmpty()) {
+            log.debug("Catalog aggregates match a recount of {} categories", recount.totals().size());
+        } else {
+            drift.values().forEach(delta -> log.warn("Catalog aggregates of category '{}' are off by {} products, "
+                    + "{} units, {} value", delta.category(), delta.products(), delta.units(), delta.value()));
+        }
+
+        List<CategoryAggregate> confirmed = !recountedSince(previousPasses, recount.passes()) ? List.of()
+                : drift.values().stream()
+                        .filter(delta -> delta.equals(previousDrift.get(delta.category())))
+                        .toList();
+        previousDrift = drift;
+        previousPasses = recount.passes();
+        if (confirmed.isEmpty()) {
+            return;
+        }
+        if (!catalogAggregateIndex.apply(confirmed, lease)) {
+            log.warn("Lost lease {} (fencing token {}), dropped the correction", lease.name(), lease.token());
+            return;
+        }
+        corrections.increment(confirmed.size());
+        log.info("Corrected the aggregates of {} categories", confirmed.size());
+        // What is left after the correction has to be seen twice again
+        previousDrift = Map.of();
+    }
+
+    /**
+     * Whether every partition stored a new recount since the one with pass numbers {@code before}: the same
+     * recount compared twice would confirm whatever drift it shows.
+     */
+    static boolean recountedSince(List<Long> before, List<Long> after) {
+        if (before.size() != after.size()) {
+            return false;
+        }
+        for (int partition = 0; partition < after.size(); partition++) {
+            if (after.get(partition) <= before.get(partition)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * What has to be added to the stored totals to match the recount, per category that differs.
+     */
+    static Map<String, CategoryAggregate> drift(Map<String, CategoryAggregate> recount, CatalogAggregates stored) {
+        Map<String, CategoryAggregate> drift = new HashMap<>(recount);
+        for (CategoryAggregate current : stored.categories()) {
+            drift.merge(current.category(), CategoryAggregate.empty(current.category()).minus(current),
+                    CategoryAggregate::plus);
+        }
+        drift.values().removeIf(CategoryAggregate::isEmpty);
+        return drift;
+    }
+}
@@ -0,0 +1,95 @@
+package id.my.hendisantika.crudredis.index;
+
+import id.my.hendisantika.crudredis.model.Product;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 10.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * One sorted set of product ids per category key, {@code products:category-created:<key>}, scored by
+ * creation time like {@link CreationTimeIndex}. Lets per-category retention find the oldest products of a
+ * category without reading the others.
+ */
+@Component
+@RequiredArgsConstructor
+public class CategoryCreationIndex implements ProductIndex {
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Override
+    public void onSave(Product previous, Product current) {
+        if (previous != null && previous.getCategoryKey() != null
+                && !Objects.equals(previous.getCategoryKey(), current.getCategoryKey())) {
+            stringRedisTemplate.opsForZSet().remove(ProductKeys.categoryCreated(previous.getCategoryKey()), current.getId());
+        }
+        if (current.getCategoryKey() != null) {
+            stringRedisTemplate.opsForZSet().add(ProductKeys.categoryCreated(current.getCategoryKey()), current.getId(),
+                    current.getCreatedAt() == null ? 0 : current.getCreatedAt());
+        }
+    }
+
+    @Override
+    public void onDelete(Product previous) {
+        if (previous.getCategoryKey() != null) {
+            stringRedisTemplate.opsForZSet().remove(ProductKeys.categoryCreated(previous.getCategoryKey()), previous.getId());
+        }
+    }
+
+    @Override
+    public void clear() {
+        List<String> keys = new ArrayList<>();
+        try (Cursor<String> cursor = stringRedisTemplate.scan(ScanOptions.scanOptions()
+                .match(ProductKeys.categoryCreatedPattern()).count(1000).build())) {
+            cursor.forEachRemaining(keys::add);
+        }
+        if (!keys.isEmpty()) {
+            stringRedisTemplate.unlink(keys);
+        }
+    }
+
+    public long count(String categoryKey) {
+        Long count = stringRedisTemplate.opsForZSet().zCard(ProductKeys.categoryCreated(categoryKey));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * The {@code count} oldest ids of the category after skipping the {@code offset} oldest, oldest first.
+     */
+    public List<String> oldest(String categoryKey, long offset, long count) {
+        if (count <= 0) {
+            return List.of();
+        }
+        Set<String> ids = stringRedisTemplate.opsForZSet().range(ProductKeys.categoryCreated(categoryKey),
+                offset, offset + count - 1);
+        return ids == null ? List.of() : new ArrayList<>(ids);
+    }
+
+    /**
+     * Drops ids whose product is already gone, so they aren't offered again.
+     */
+    public void remove(String categoryKey, Collection<String> ids) {
+        if (!ids.isEmpty()) {
+            stringRedisTemplate.opsForZSet().remove(ProductKeys.categoryCreated(categoryKey), ids.toArray());
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package id.my.hendisantika.crudredis.index;
+
+import id.my.hendisantika.crudredis.config.ReplicaRedisTemplate;
+import id.my.hendisantika.crudredis.model.Product;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.SequencedMap;
+import java.util.Set;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 11.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Sorted set of product ids scored by {@link Product#getCreatedAt()}, listed newest first.
+ * Pages are addressed by a {@code <createdAt>_<id>} cursor of the row they start after or end before,
+ * so every page costs O(log n + page size) no matter how deep it is. Pages are read from replicas when
+ * {@code products.redis.read-from} allows it.
+ */
+@Component
+@RequiredArgsConstructor
+public class CreationTimeIndex implements ProductIndex {
+
+    private static final char CURSOR_SEPARATOR = '_';
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ReplicaRedisTemplate replicaRedisTemplate;
+
+    @Override
+    public void onSave(Product previous, Product current) {
+        stringRedisTemplate.opsForZSet().add(ProductKeys.created(), current.getId(), score(current));
+    }
+
+    @Override
+    public void onDelete(Product previous) {
+        stringRedisTemplate.opsForZSet().remove(ProductKeys.created(), previous.getId());
+    }
+
+    @Override
+    public void clear() {
+        stringRedisTemplate.unlink(ProductKeys.created());
+    }
+
+    /**
+     * ZCARD of the index, the number of products without reading any of them.
+     */
+    public long count() {
+        Long count = stringRedisTemplate.opsForZSet().zCard(ProductKeys.created());
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Ids at positions {@code start} to {@code end} (inclusive), newest first.
+     */
+    public List<String> range(long start, long end) {
+        if (end < start) {
+            return List.of();
+        }
+        Set<String> ids = replicaRedisTemplate.opsForZSet().reverseRange(ProductKeys.created(), start, end);
+        return ids == null ? List.of() : new ArrayList<>(ids);
+    }
+
+    /**
+     * Like {@link #range}, with the page cursor of each id.
+     */
+    public SequencedMap<String, String> rangeWithCursors(long start, long end) {
+        SequencedMap<String, String> cursors = new LinkedHashMap<>();
+        if (end < start) {
+            return cursors;
+        }
+        Set<ZSetOperations.TypedTuple<String>> rows =
+                replicaRedisTemplate.opsForZSet().reverseRangeWithScores(ProductKeys.created(), start, end);
+        if (rows != null) {
+            rows.forEach(row -> cursors.put(row.getValue(), cursor(row.getValue(), row.getScore())));
+        }
+        return cursors;
+    }
+
+    /**
+     * The {@code count} oldest ids after skipping the {@code offset} oldest, oldest first.
+     */
+    public List<String> oldest(long offset, long count) {
+        if (count <= 0) {
+            return List.of();
+        }
+        Set<String> ids = stringRedisTemplate.opsForZSet().range(ProductKeys.created(), offset, offset + count - 1);
+        return ids == null ? List.of() : new ArrayList<>(ids);
+    }
+
+    /**
+     * Up to {@code count} ids created before {@code epochMillis} after skipping {@code offset} of them, oldest
+     * first. Products without a creation time (scored 0 until the index migration gives them one) are left out,
+     * their age being unknown.
+     */
+    public List<String> createdBefore(long epochMillis, long offset, long count) {
+        Set<String> ids = stringRedisTemplate.opsForZSet().rangeByScore(ProductKeys.created(),
+                1, epochMillis - 1, offset, count);
+        return ids == null ? List.of() : new ArrayList<>(ids);
+    }
+
+    /**
+     * Position of the first row after the cursor.
+     */
+    public long positionAfter(String cursor) {
+        Long rank = rankOf(cursor);
+        return rank != null ? rank + 1 : newerThan(cursor);
+    }
+
+    /**
+     * Position of the cursor row itself, i.e. the exclusive end of the page before it.
+     */
+    public long positionBefore(String cursor) {
+        Long rank = rankOf(cursor);
+        return rank != null ? rank : newerThan(cursor);
+    }
+
+    public static String cursor(Product product) {
+        return cursor(product.getId(), score(product));
+    }
+
+    private static String cursor(String id, double score) {
+        return (long) score + String.valueOf(CURSOR_SEPARATOR) + id;
+    }
+
+    private Long rankOf(String cursor) {
+        return replicaRedisTemplate.opsForZSet().reverseRank(ProductKeys.created(), cursorId(cursor));
+    }
+
+    /**
+     * Fallback when the cursor row was deleted meanwhile: the number of rows created after it.
+     */
+    private long newerThan(String cursor) {
+        Long count = replicaRedisTemplate.opsForZSet().count(ProductKeys.created(), cursorScore(cursor) + 1,
+                Double.POSITIVE_INFINITY);
+        return count == null ? 0 : count;
+    }
+
+    private static String cursorId(String cursor) {
+        return cursor.substring(cursor.indexOf(CURSOR_SEPARATOR) + 1);
+    }
+
+    private static double cursorScore(String cursor) {
+        int separator = cursor.indexOf(CURSOR_SEPARATOR);
+        try {
+            return separator > 0 ? Long.parseLong(cursor.substring(0, separator)) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static double score(Product product) {
+        // Products stored before createdAt existed sort as the oldest
+        return product.getCreatedAt() == null ? 0 : product.getCreatedAt();
+    }
+}
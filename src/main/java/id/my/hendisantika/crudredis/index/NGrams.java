@@ -0,0 +1,60 @@
+package id.my.hendisantika.crudredis.index;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 10.10
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Splits lower-cased product names into the grams stored by {@link NameSearchIndex}.
+ * Every substring of up to {@link #SIZE} characters is indexed, so one or two character
+ * searches hit a single set and longer searches intersect their trigrams.
+ */
+public final class NGrams {
+
+    public static final int SIZE = 3;
+
+    private NGrams() {
+    }
+
+    /**
+     * All distinct substrings of length 1 to {@link #SIZE} of the given text.
+     */
+    public static Set<String> of(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (text == null) {
+            return grams;
+        }
+        for (int length = 1; length <= SIZE; length++) {
+            for (int start = 0; start + length <= text.length(); start++) {
+                grams.add(text.substring(start, start + length));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * The smallest set of grams every text containing {@code term} is indexed under.
+     */
+    public static Set<String> query(String term) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (term.length() <= SIZE) {
+            grams.add(term);
+            return grams;
+        }
+        for (int start = 0; start + SIZE <= term.length(); start++) {
+            grams.add(term.substring(start, start + SIZE));
+        }
+        return grams;
+    }
+}
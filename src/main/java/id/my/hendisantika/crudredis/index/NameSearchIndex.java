@@ -0,0 +1,156 @@
+package id.my.hendisantika.crudredis.index;
+
+import id.my.hendisantika.crudredis.config.ReplicaRedisTemplate;
+import id.my.hendisantika.crudredis.model.Product;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 10.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Inverted n-gram index over lower-cased product names: one {@code products:ngram:<gram>} set of ids per gram.
+ * {@link #candidates} only narrows the search, callers still confirm the substring match. It reads from replicas
+ * when {@code products.redis.read-from} allows it.
+ */
+@Component
+@RequiredArgsConstructor
+public class NameSearchIndex implements ProductIndex {
+
+    private static final int SCAN_BATCH = 500;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ReplicaRedisTemplate replicaRedisTemplate;
+
+    @Override
+    public void onSave(Product previous, Product current) {
+        Set<String> before = grams(previous);
+        Set<String> after = grams(current);
+        Set<String> removed = new HashSet<>(before);
+        removed.removeAll(after);
+        Set<String> added = new HashSet<>(after);
+        added.removeAll(before);
+        update(current.getId(), removed, added);
+    }
+
+    @Override
+    public void onDelete(Product previous) {
+        update(previous.getId(), grams(previous), Set.of());
+    }
+
+    /**
+     * Sends every SREM and SADD of one product in a single round trip: a name has dozens of grams. Inside the
+     * pipeline of a bulk write, or the MULTI of a fenced job write, the commands simply join it.
+     */
+    private void update(String id, Set<String> removed, Set<String> added) {
+        if (removed.isEmpty() && added.isEmpty()) {
+            return;
+        }
+        byte[] member = id.getBytes(StandardCharsets.UTF_8);
+        stringRedisTemplate.execute((RedisCallback<Object>) connection -> {
+            boolean ownPipeline = !connection.isPipelined() && !connection.isQueueing();
+            if (ownPipeline) {
+                connection.openPipeline();
+            }
+            removed.forEach(gram -> connection.setCommands().sRem(ngramKey(gram), member));
+            added.forEach(gram -> connection.setCommands().sAdd(ngramKey(gram), member));
+            if (ownPipeline) {
+                connection.closePipeline();
+            }
+            return null;
+        });
+    }
+
+    private static byte[] ngramKey(String gram) {
+        return ProductKeys.ngram(gram).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void clear() {
+        List<String> keys = new ArrayList<>();
+        try (Cursor<String> cursor = stringRedisTemplate.scan(ScanOptions.scanOptions()
+                .match(ProductKeys.ngramPattern()).count(1000).build())) {
+            cursor.forEachRemaining(keys::add);
+        }
+        if (!keys.isEmpty()) {
+            stringRedisTemplate.unlink(keys);
+        }
+    }
+
+    /**
+     * Ids of products whose name may contain the already lower-cased, trimmed {@code term}.
+     * The smallest gram set is walked with SSCAN and each batch is checked against the other sets with
+     * SMISMEMBER, so no single command's cost grows with the size of a set.
+     */
+    public Set<String> candidates(String term) {
+        List<String> keys = new ArrayList<>(NGrams.query(term).stream().map(ProductKeys::ngram).toList());
+        String smallest = keys.size() == 1 ? keys.getFirst() : smallest(keys);
+        keys.remove(smallest);
+
+        Set<String> candidates = new HashSet<>();
+        try (Cursor<String> cursor = replicaRedisTemplate.opsForSet().scan(smallest,
+                ScanOptions.scanOptions().count(SCAN_BATCH).build())) {
+            List<String> batch = new ArrayList<>(SCAN_BATCH);
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == SCAN_BATCH || !cursor.hasNext()) {
+                    candidates.addAll(membersOfAll(batch, keys));
+                    batch = new ArrayList<>(SCAN_BATCH);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private String smallest(List<String> keys) {
+        List<Object> sizes = replicaRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            keys.forEach(key -> connection.setCommands().sCard(key.getBytes(StandardCharsets.UTF_8)));
+            return null;
+        });
+        int smallest = 0;
+        for (int i = 1; i < keys.size(); i++) {
+            if (((Number) sizes.get(i)).longValue() < ((Number) sizes.get(smallest)).longValue()) {
+                smallest = i;
+            }
+        }
+        return keys.get(smallest);
+    }
+
+    private List<String> membersOfAll(List<String> ids, List<String> keys) {
+        for (String key : keys) {
+            if (ids.isEmpty()) {
+                break;
+            }
+            Map<Object, Boolean> members = replicaRedisTemplate.opsForSet().isMember(key, ids.toArray());
+            ids = ids.stream().filter(id -> members != null && Boolean.TRUE.equals(members.get(id))).toList();
+        }
+        return ids;
+    }
+
+    private static Set<String> grams(Product product) {
+        if (product == null || product.getName() == null) {
+            return new HashSet<>();
+        }
+        return NGrams.of(product.getName().toLowerCase());
+    }
+}
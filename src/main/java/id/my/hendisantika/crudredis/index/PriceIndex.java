@@ -0,0 +1,41 @@
+package id.my.hendisantika.crudredis.index;
+
+import id.my.hendisantika.crudredis.config.ReplicaRedisTemplate;
+import id.my.hendisantika.crudredis.model.Product;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 08.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * {@link ScoreIndex} on {@link Product#getPrice()}, kept in {@code products:price}.
+ * Scores are prices in cents, whole numbers that a double holds exactly for any realistic price.
+ */
+@Component
+public class PriceIndex extends ScoreIndex {
+
+    public PriceIndex(StringRedisTemplate stringRedisTemplate, ReplicaRedisTemplate replicaRedisTemplate) {
+        super(stringRedisTemplate, replicaRedisTemplate, ProductKeys.price());
+    }
+
+    @Override
+    protected Double score(Product product) {
+        return product.getPrice() == null ? null : score(product.getPrice());
+    }
+
+    public static double score(BigDecimal price) {
+        return price.movePointRight(2).doubleValue();
+    }
+}
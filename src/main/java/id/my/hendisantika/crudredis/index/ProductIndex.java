@@ -0,0 +1,38 @@
+package id.my.hendisantika.crudredis.index;
+
+import id.my.hendisantika.crudredis.model.Product;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 10.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * A Redis structure derived from products and kept in step with every write.
+ * Implementations must be idempotent so a rebuild can replay {@link #onSave} for every product, and
+ * {@link #onSave} and {@link #onDelete} must only issue writes: bulk writes call them inside a pipeline, and fenced
+ * job deletes inside a MULTI, where replies are not available.
+ */
+public interface ProductIndex {
+
+    /**
+     * @param previous the stored state before the write, or {@code null} for a new product
+     * @param current  the state that was just written
+     */
+    void onSave(Product previous, Product current);
+
+    void onDelete(Product previous);
+
+    /**
+     * Drops every entry so a rebuild starts from an empty index.
+     */
+    default void clear() {
+    }
+}
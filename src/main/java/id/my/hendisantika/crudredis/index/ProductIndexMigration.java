@@ -0,0 +1,140 @@
+package id.my.hendisantika.crudredis.index;
+
+import id.my.hendisantika.crudredis.model.CategoryAggregate;
+import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.repository.ProductRepository;
+import id.my.hendisantika.crudredis.scheduler.JobLeases;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 09.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Backfills product indexes for data written before they existed.
+ * The applied index version is stored in Redis, so the rebuild only runs once per version bump
+ * (or on every start when {@code products.index.rebuild-on-startup=true}).
+ */
+@Component
+@Order(0)
+@RequiredArgsConstructor
+@Slf4j
+public class ProductIndexMigration implements CommandLineRunner {
+
+    /**
+     * Bump whenever a new index is introduced that existing products must be written into.
+     */
+    static final int INDEX_VERSION = 9;
+
+    static final String VERSION_KEY = "products:index:version";
+
+    static final String LEASE = "index-migration";
+
+    private final ProductRepository productRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final List<ProductIndex> productIndexes;
+    private final CatalogAggregateIndex catalogAggregateIndex;
+    private final JobLeases jobLeases;
+
+    @Value("${products.index.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @Value("${products.index.rebuild-lease-ttl:PT30M}")
+    private Duration rebuildLeaseTtl;
+
+    /**
+     * Instances started together would each clear and replay the indexes, so only the one taking the
+     * {@code index-migration} lease rebuilds; the others start on the indexes as they are.
+     */
+    @Override
+    public void run(String... args) {
+        String applied = stringRedisTemplate.opsForValue().get(VERSION_KEY);
+        if (!rebuildOnStartup && applied != null && Integer.parseInt(applied) >= INDEX_VERSION) {
+            log.debug("Product indexes are at version {}", applied);
+            return;
+        }
+
+        boolean ran = jobLeases.runAsLeader(LEASE, rebuildLeaseTtl, lease -> {
+            try {
+                log.info("Rebuilding product indexes (stored version: {}, target version: {})", applied, INDEX_VERSION);
+                long rebuilt = rebuild();
+                stringRedisTemplate.opsForValue().set(VERSION_KEY, String.valueOf(INDEX_VERSION));
+                log.info("Rebuilt indexes for {} products", rebuilt);
+            } finally {
+                jobLeases.release(lease);
+            }
+        });
+        if (!ran) {
+            log.info("Another instance is rebuilding the product indexes");
+        }
+    }
+
+    /**
+     * Clears every {@link ProductIndex}, then re-saves each product so Spring Data Redis rewrites its
+     * {@code @Indexed} entries and replays it into the other indexes. Products stored before {@code createdAt}
+     * existed are given the time of the rebuild, so retention's {@code max-age} counts from when they were first
+     * seen rather than treating them as created in 1970.
+     * <p>
+     * The catalog aggregates are deltas, which SSCAN returning an id twice would count twice, so they are
+     * recounted instead, once per id, and replace the stored totals at the end.
+     */
+    public long rebuild() {
+        List<ProductIndex> replayed = productIndexes.stream()
+                .filter(index -> index != catalogAggregateIndex)
+                .toList();
+        replayed.forEach(ProductIndex::clear);
+        long firstSeen = System.currentTimeMillis();
+        Set<String> rebuilt = new HashSet<>();
+        Map<String, CategoryAggregate> totals = new HashMap<>();
+        try (Stream<Product> products = productRepository.streamAll()) {
+            products.forEach(product -> {
+                // setCategory derives the lower-case categoryKey for hashes written before it existed
+                product.setCategory(product.getCategory());
+                if (product.getCreatedAt() == null) {
+                    product.setCreatedAt(firstSeen);
+                }
+                productRepository.save(product);
+                replayed.forEach(index -> index.onSave(null, product));
+                moveReservedStock(product.getId());
+                if (rebuilt.add(product.getId())) {
+                    CategoryAggregate contribution = CategoryAggregate.of(product);
+                    totals.merge(contribution.category(), contribution, CategoryAggregate::plus);
+                }
+            });
+        }
+        catalogAggregateIndex.replace(totals.values());
+        return rebuilt.size();
+    }
+
+    /**
+     * Reserved-stock counters moved to hash-tagged keys, see {@link ProductKeys#reservedStock(String)}.
+     */
+    private void moveReservedStock(String id) {
+        String legacy = ProductKeys.legacyReservedStock(id);
+        if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(legacy))) {
+            stringRedisTemplate.rename(legacy, ProductKeys.reservedStock(id));
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package id.my.hendisantika.crudredis.index;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 10.05
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Redis key names for the structures maintained next to the {@code Product:<id>} hashes.
+ * <p>
+ * Keys a script or MULTI touches together carry the same {@code {hash tag}}, so a Redis Cluster keeps them in
+ * one slot. The shared indexes (id sets, n-gram sets, sorted sets) are single keys each, spread over the
+ * cluster by name; nothing updates them atomically with a product hash.
+ */
+public final class ProductKeys {
+
+    public static final String PREFIX = "products";
+
+    /**
+     * Keyspace of the {@code @RedisHash} entity: the id set and the {@code Product:<id>} hash prefix.
+     */
+    public static final String KEYSPACE = "Product";
+
+    private ProductKeys() {
+    }
+
+    public static String hash(String id) {
+        return KEYSPACE + ":" + id;
+    }
+
+    public static String category(String categoryKey) {
+        return KEYSPACE + ":categoryKey:" + categoryKey;
+    }
+
+    /**
+     * Units held by {@code reserveStock} until they are released, a counter next to the product hash.
+     * The hash key is its hash tag, so in a cluster it lives in the hash's slot and one script can update both.
+     */
+    public static String reservedStock(String id) {
+        return "{" + hash(id) + "}:reserved";
+    }
+
+    /**
+     * Where {@link #reservedStock(String)} was kept before it was hash-tagged.
+     */
+    public static String legacyReservedStock(String id) {
+        return hash(id) + ":reserved";
+    }
+
+    /**
+     * Counter bumped by every write to the product, next to its hash like {@link #reservedStock(String)}.
+     */
+    public static String productVersion(String id) {
+        return "{" + hash(id) + "}:version";
+    }
+
+    /**
+     * Counter bumped by every product write.
+     */
+    public static String catalogVersion() {
+        return PREFIX + ":catalog:version";
+    }
+
+    /**
+     * One of the catalog aggregate hashes, {@code count}, {@code units} or {@code value}, keyed by category key.
+     * They share a hash tag so one script updates all three in a cluster.
+     */
+    public static String aggregates(String measure) {
+        return PREFIX + ":{aggregates}:" + measure;
+    }
+
+    /**
+     * The recount one partition of the aggregate reconciliation found, a hash of {@code <count>:<units>:<value>}
+     * by category key. Keyed by the partition count too, so recounts of a different split are never mixed in.
+     */
+    public static String aggregateRecount(int partitions, int partition) {
+        return PREFIX + ":{aggregates}:recount:" + partitions + ":" + partition;
+    }
+
+    /**
+     * How many times each {@link #aggregateRecount} was written, by {@code <partitions>:<partition>}.
+     */
+    public static String aggregateRecounts() {
+        return PREFIX + ":{aggregates}:recounts";
+    }
+
+    /**
+     * Stream of product changes, capped at {@code products.changes.max-length} entries.
+     */
+    public static String changes() {
+        return PREFIX + ":changes";
+    }
+
+    /**
+     * Spring Data's per-entity set listing the {@code @Indexed} keys the product is a member of.
+     */
+    public static String indexHelper(String id) {
+        return hash(id) + ":idx";
+    }
+
+    public static String ngram(String gram) {
+        return PREFIX + ":ngram:" + gram;
+    }
+
+    public static String ngramPattern() {
+        return PREFIX + ":ngram:*";
+    }
+
+    public static String created() {
+        return PREFIX + ":created";
+    }
+
+    public static String categoryCreated(String categoryKey) {
+        return PREFIX + ":category-created:" + categoryKey;
+    }
+
+    public static String categoryCreatedPattern() {
+        return PREFIX + ":category-created:*";
+    }
+
+    public static String price() {
+        return PREFIX + ":price";
+    }
+
+    public static String quantity() {
+        return PREFIX + ":quantity";
+    }
+
+    /**
+     * A short-lived key for intermediate results of one query, deleted by the script that creates it.
+     */
+    public static String scratch(String name) {
+        return PREFIX + ":scratch:" + name;
+    }
+
+    /**
+     * A scheduled job's lease, holding {@code <fencing token>:<holder>} while some instance holds it. The lease of
+     * one partition of a job, named {@code <job>:<partition>}, is {@code products:lease:{<job>}:<partition>}: the
+     * job name is the hash tag, so a job named after the tag of the keys it writes (like {@code aggregates}) has
+     * its leases in their slot, where its write scripts can check them.
+     */
+    public static String lease(String name) {
+        int partition = name.indexOf(':');
+        if (partition < 0) {
+            return PREFIX + ":lease:{" + name + "}";
+        }
+        return PREFIX + ":lease:{" + name.substring(0, partition) + "}" + name.substring(partition);
+    }
+
+    /**
+     * Counter handing out the fencing tokens of {@link #lease(String)}; it only ever grows. Shares the lease's
+     * hash tag, so the acquiring script can touch both in a cluster.
+     */
+    public static String leaseFence(String name) {
+        return lease(name) + ":fence";
+    }
+
+    /**
+     * Instances running scheduled jobs, scored by their last heartbeat.
+     */
+    public static String schedulerNodes() {
+        return PREFIX + ":scheduler:nodes";
+    }
+}
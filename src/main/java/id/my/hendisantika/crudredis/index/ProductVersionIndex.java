@@ -0,0 +1,73 @@
+package id.my.hendisantika.crudredis.index;
+
+import id.my.hendisantika.crudredis.model.Product;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 13.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Version counters behind the HTTP ETags: one per product, {@code {Product:<id>}:version}, and one for the whole
+ * catalog, {@code products:catalog:version}, both INCRed by every write. Checking a conditional request is then
+ * one GET of a counter instead of reading hashes and rendering.
+ * <p>
+ * A counter never goes back, so a version is never handed out twice: {@link #clear()} keeps them, a rebuild
+ * replaying {@link #onSave} only bumps them (clients revalidate once), and a deleted product's counter is kept
+ * for {@code products.http.deleted-version-ttl} so the id can come back without reusing a version.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductVersionIndex implements ProductIndex {
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${products.http.deleted-version-ttl:P7D}")
+    private Duration deletedVersionTtl;
+
+    @Override
+    public void onSave(Product previous, Product current) {
+        String key = ProductKeys.productVersion(current.getId());
+        stringRedisTemplate.opsForValue().increment(key);
+        if (previous == null) {
+            // The id may have been deleted before, its counter is live again
+            stringRedisTemplate.persist(key);
+        }
+        stringRedisTemplate.opsForValue().increment(ProductKeys.catalogVersion());
+    }
+
+    @Override
+    public void onDelete(Product previous) {
+        String key = ProductKeys.productVersion(previous.getId());
+        stringRedisTemplate.opsForValue().increment(key);
+        stringRedisTemplate.expire(key, deletedVersionTtl);
+        stringRedisTemplate.opsForValue().increment(ProductKeys.catalogVersion());
+    }
+
+    /**
+     * The product's current version, empty if it has never been written.
+     */
+    public OptionalLong version(String id) {
+        String version = stringRedisTemplate.opsForValue().get(ProductKeys.productVersion(id));
+        return version == null ? OptionalLong.empty() : OptionalLong.of(Long.parseLong(version));
+    }
+
+    public long catalogVersion() {
+        String version = stringRedisTemplate.opsForValue().get(ProductKeys.catalogVersion());
+        return version == null ? 0 : Long.parseLong(version);
+    }
+}
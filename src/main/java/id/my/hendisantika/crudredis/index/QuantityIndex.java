@@ -0,0 +1,34 @@
+package id.my.hendisantika.crudredis.index;
+
+import id.my.hendisantika.crudredis.config.ReplicaRedisTemplate;
+import id.my.hendisantika.crudredis.model.Product;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 08.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * {@link ScoreIndex} on {@link Product#getQuantity()}, kept in {@code products:quantity}.
+ */
+@Component
+public class QuantityIndex extends ScoreIndex {
+
+    public QuantityIndex(StringRedisTemplate stringRedisTemplate, ReplicaRedisTemplate replicaRedisTemplate) {
+        super(stringRedisTemplate, replicaRedisTemplate, ProductKeys.quantity());
+    }
+
+    @Override
+    protected Double score(Product product) {
+        return product.getQuantity() == null ? null : product.getQuantity().doubleValue();
+    }
+}
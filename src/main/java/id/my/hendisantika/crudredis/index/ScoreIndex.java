@@ -0,0 +1,193 @@
+package id.my.hendisantika.crudredis.index;
+
+import id.my.hendisantika.crudredis.config.ReplicaRedisTemplate;
+import id.my.hendisantika.crudredis.model.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 08.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Sorted set of product ids scored by one numeric field, for range filters and sorted listings.
+ * A range slice costs O(log n + offset + limit) with ZRANGEBYSCORE ... LIMIT, whatever the catalog size.
+ * Products without a value for the field are left out. Queries are read from replicas when
+ * {@code products.redis.read-from} allows it.
+ */
+public abstract class ScoreIndex implements ProductIndex {
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> INTERSECT_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/range-intersect.lua"), List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ReplicaRedisTemplate replicaRedisTemplate;
+    private final String key;
+
+    @Value("${products.repository.pipeline-batch-size:200}")
+    private int batchSize;
+
+    protected ScoreIndex(StringRedisTemplate stringRedisTemplate, ReplicaRedisTemplate replicaRedisTemplate,
+                         String key) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.replicaRedisTemplate = replicaRedisTemplate;
+        this.key = key;
+    }
+
+    /**
+     * The product's score, or {@code null} when it has no value to index.
+     */
+    protected abstract Double score(Product product);
+
+    @Override
+    public void onSave(Product previous, Product current) {
+        Double score = score(current);
+        if (score == null) {
+            stringRedisTemplate.opsForZSet().remove(key, current.getId());
+        } else {
+            stringRedisTemplate.opsForZSet().add(key, current.getId(), score);
+        }
+    }
+
+    @Override
+    public void onDelete(Product previous) {
+        stringRedisTemplate.opsForZSet().remove(key, previous.getId());
+    }
+
+    @Override
+    public void clear() {
+        stringRedisTemplate.unlink(key);
+    }
+
+    /**
+     * Ids scored between {@code min} and {@code max} (inclusive, infinities for open bounds), sorted by score.
+     */
+    public List<String> range(double min, double max, boolean descending, long offset, long limit) {
+        Set<String> ids = descending
+                ? replicaRedisTemplate.opsForZSet().reverseRangeByScore(key, min, max, offset, limit)
+                : replicaRedisTemplate.opsForZSet().rangeByScore(key, min, max, offset, limit);
+        return ids == null ? List.of() : new ArrayList<>(ids);
+    }
+
+    /**
+     * ZCOUNT of ids scored between {@code min} and {@code max}.
+     */
+    public long count(double min, double max) {
+        Long count = replicaRedisTemplate.opsForZSet().count(key, min, max);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Like {@link #range}, keeping only the ids scored between {@code otherMin} and {@code otherMax} in
+     * {@code other} as well; the total counts every id in both ranges. Both ranges are copied and intersected by
+     * {@code scripts/range-intersect.lua} on the primary, O(n log n) in the size of the two ranges. The two
+     * indexes live in different hash slots, so this can't run on a cluster; see {@link #intersectByLookup}.
+     */
+    public Intersection intersect(double min, double max, ScoreIndex other, double otherMin, double otherMax,
+                                  boolean descending, long offset, long limit) {
+        String scratch = UUID.randomUUID().toString();
+        List<String> keys = List.of(key, other.key, ProductKeys.scratch(scratch + ":a"),
+                ProductKeys.scratch(scratch + ":b"));
+        List<?> reply = stringRedisTemplate.execute(INTERSECT_SCRIPT, keys, bound(min), bound(max),
+                bound(otherMin), bound(otherMax), descending ? "desc" : "asc", String.valueOf(offset),
+                String.valueOf(limit));
+        List<String> ids = reply.subList(1, reply.size()).stream().map(String::valueOf).toList();
+        return new Intersection(ids, ((Number) reply.getFirst()).longValue());
+    }
+
+    /**
+     * What {@link #intersect} returns, without a script, so it also works on a cluster: walks the smaller of the
+     * two ranges in batches of {@code products.repository.pipeline-batch-size} and looks each batch up in the other
+     * index with one ZMSCORE. When this range is the smaller one its matches come in order; otherwise the other
+     * range's matches are sorted by their score here, like ZRANGEBYSCORE sorts ties by id.
+     */
+    public Intersection intersectByLookup(double min, double max, ScoreIndex other, double otherMin,
+                                          double otherMax, boolean descending, long offset, long limit) {
+        if (count(min, max) <= other.count(otherMin, otherMax)) {
+            List<String> page = new ArrayList<>();
+            long total = 0;
+            List<String> ids;
+            long start = 0;
+            do {
+                ids = range(min, max, descending, start, batchSize);
+                List<Double> otherScores = other.scores(ids);
+                for (int i = 0; i < ids.size(); i++) {
+                    if (within(otherScores.get(i), otherMin, otherMax)) {
+                        if (total >= offset && page.size() < limit) {
+                            page.add(ids.get(i));
+                        }
+                        total++;
+                    }
+                }
+                start += ids.size();
+            } while (ids.size() == batchSize);
+            return new Intersection(page, total);
+        }
+
+        List<Map.Entry<String, Double>> matches = new ArrayList<>();
+        List<String> ids;
+        long start = 0;
+        do {
+            ids = other.range(otherMin, otherMax, false, start, batchSize);
+            List<Double> scores = scores(ids);
+            for (int i = 0; i < ids.size(); i++) {
+                if (within(scores.get(i), min, max)) {
+                    matches.add(Map.entry(ids.get(i), scores.get(i)));
+                }
+            }
+            start += ids.size();
+        } while (ids.size() == batchSize);
+        Comparator<Map.Entry<String, Double>> order =
+                Map.Entry.<String, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey());
+        matches.sort(descending ? order.reversed() : order);
+        return new Intersection(matches.stream().skip(offset).limit(limit).map(Map.Entry::getKey).toList(),
+                matches.size());
+    }
+
+    /**
+     * ZMSCORE of the ids, {@code null} for those not in the index.
+     */
+    private List<Double> scores(List<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Double> scores = replicaRedisTemplate.opsForZSet().score(key, ids.toArray());
+        return scores == null ? Collections.nCopies(ids.size(), null) : scores;
+    }
+
+    private static boolean within(Double score, double min, double max) {
+        return score != null && score >= min && score <= max;
+    }
+
+    private static String bound(double score) {
+        if (Double.isInfinite(score)) {
+            return score > 0 ? "+inf" : "-inf";
+        }
+        return Double.toString(score);
+    }
+
+    /**
+     * One page of the ids in both ranges, and how many there are in all.
+     */
+    public record Intersection(List<String> ids, long total) {
+    }
+}
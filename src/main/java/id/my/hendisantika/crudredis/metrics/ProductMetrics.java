@@ -0,0 +1,63 @@
+package id.my.hendisantika.crudredis.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 21.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Meters of the product service:
+ * <ul>
+ *     <li>{@code products.service} timer per {@code operation}, with percentile histograms</li>
+ *     <li>{@code products.scan.size} summary per {@code operation}: products fetched from Redis and filtered
+ *     in memory to answer one call</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> scanSizes = new ConcurrentHashMap<>();
+
+    public <T> T time(String operation, Supplier<T> call) {
+        return timers.computeIfAbsent(operation, key -> Timer.builder("products.service")
+                .description("Latency of ProductService operations")
+                .tag("operation", key)
+                .publishPercentileHistogram()
+                .register(meterRegistry)).record(call);
+    }
+
+    public void time(String operation, Runnable call) {
+        time(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public void recordScan(String operation, int scanned) {
+        scanSizes.computeIfAbsent(operation, key -> DistributionSummary.builder("products.scan.size")
+                .description("Products fetched and filtered in memory per call")
+                .baseUnit("products")
+                .tag("operation", key)
+                .register(meterRegistry)).record(scanned);
+    }
+}
@@ -0,0 +1,143 @@
+package id.my.hendisantika.crudredis.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 21.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Counts Redis commands and payload bytes by wrapping connections handed out by the connection factory.
+ * Publishes {@code redis.commands} per {@code command}, plus {@code redis.commands.bytes.sent} and
+ * {@code redis.commands.bytes.received}. Byte counts cover keys, arguments and replies, not protocol framing.
+ * Pipelined replies are counted when the pipeline is closed.
+ */
+@Component
+public class RedisCommandMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Map<String, Counter> commands = new ConcurrentHashMap<>();
+    private final Counter bytesSent;
+    private final Counter bytesReceived;
+
+    public RedisCommandMetrics(MeterRegistry meterRegistry,
+                               @Value("${products.metrics.redis-commands.enabled:true}") boolean enabled) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.bytesSent = Counter.builder("redis.commands.bytes.sent").baseUnit("bytes").register(meterRegistry);
+        this.bytesReceived = Counter.builder("redis.commands.bytes.received").baseUnit("bytes").register(meterRegistry);
+    }
+
+    public RedisConnection instrument(RedisConnection connection) {
+        if (!enabled) {
+            return connection;
+        }
+        // Cluster connections keep their type, so callers can still reach the per-node cluster commands
+        if (connection instanceof RedisClusterConnection clusterConnection) {
+            return proxy(RedisClusterConnection.class, clusterConnection);
+        }
+        return proxy(RedisConnection.class, connection);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(Class<T> type, Object target) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new Handler(target));
+    }
+
+    private final class Handler implements InvocationHandler {
+
+        private final Object target;
+
+        private Handler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            String name = method.getName();
+            Class<?> returnType = method.getReturnType();
+            // hashCommands(), setCommands(), ... : wrap so the actual commands are counted
+            if (name.endsWith("Commands") && returnType.isInterface() && result != null) {
+                return proxy(returnType, result);
+            }
+            if (name.equals("closePipeline") || name.equals("exec")) {
+                bytesReceived.increment(sizeOf(result));
+                return result;
+            }
+            if (method.getDeclaringClass() != Object.class && carriesPayload(args)) {
+                commands.computeIfAbsent(name, key -> Counter.builder("redis.commands")
+                        .description("Redis commands issued")
+                        .tag("command", key)
+                        .register(meterRegistry)).increment();
+                bytesSent.increment(sizeOf(args));
+                bytesReceived.increment(sizeOf(result));
+            }
+            return result;
+        }
+
+        /**
+         * Commands always carry a key or argument; this skips accessors like isPipelined() or close().
+         */
+        private boolean carriesPayload(Object[] args) {
+            return args != null && args.length > 0;
+        }
+
+        private long sizeOf(Object value) {
+            return switch (value) {
+                case null -> 0;
+                case byte[] bytes -> bytes.length;
+                case Object[] array -> {
+                    long size = 0;
+                    for (Object element : array) {
+                        size += sizeOf(element);
+                    }
+                    yield size;
+                }
+                case Collection<?> collection -> {
+                    long size = 0;
+                    for (Object element : collection) {
+                        size += sizeOf(element);
+                    }
+                    yield size;
+                }
+                case Map<?, ?> map -> {
+                    long size = 0;
+                    for (Map.Entry<?, ?> entry : map.entrySet()) {
+                        size += sizeOf(entry.getKey()) + sizeOf(entry.getValue());
+                    }
+                    yield size;
+                }
+                default -> 0;
+            };
+        }
+    }
+}
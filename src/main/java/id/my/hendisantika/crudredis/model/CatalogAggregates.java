@@ -0,0 +1,30 @@
+package id.my.hendisantika.crudredis.model;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 14.05
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Per-category totals of the catalog, by category key, and their sum.
+ */
+public record CatalogAggregates(List<CategoryAggregate> categories, CategoryAggregate total) {
+
+    public static CatalogAggregates of(Collection<CategoryAggregate> categories) {
+        List<CategoryAggregate> sorted = categories.stream()
+                .sorted(Comparator.comparing(CategoryAggregate::category))
+                .toList();
+        return new CatalogAggregates(sorted, sorted.stream().reduce(CategoryAggregate.empty(null), CategoryAggregate::plus));
+    }
+}
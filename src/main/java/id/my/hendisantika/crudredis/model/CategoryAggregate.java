@@ -0,0 +1,54 @@
+package id.my.hendisantika.crudredis.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 14.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Totals of the products in one category.
+ *
+ * @param category the category key, {@code ""} for products without a category, {@code null} for a catalog total
+ * @param products number of products
+ * @param units    units in stock
+ * @param value    inventory value, price times units, to the cent
+ */
+public record CategoryAggregate(String category, long products, long units, BigDecimal value) {
+
+    /**
+     * What one product adds to its category.
+     */
+    public static CategoryAggregate of(Product product) {
+        long units = product.getQuantity() == null ? 0 : product.getQuantity();
+        BigDecimal price = product.getPrice() == null ? BigDecimal.ZERO : product.getPrice();
+        return new CategoryAggregate(product.getCategoryKey() == null ? "" : product.getCategoryKey(), 1, units,
+                price.multiply(BigDecimal.valueOf(units)).setScale(2, RoundingMode.HALF_UP));
+    }
+
+    public static CategoryAggregate empty(String category) {
+        return new CategoryAggregate(category, 0, 0, BigDecimal.ZERO.setScale(2));
+    }
+
+    public CategoryAggregate plus(CategoryAggregate other) {
+        return new CategoryAggregate(category, products + other.products, units + other.units, value.add(other.value));
+    }
+
+    public CategoryAggregate minus(CategoryAggregate other) {
+        return new CategoryAggregate(category, products - other.products, units - other.units,
+                value.subtract(other.value));
+    }
+
+    public boolean isEmpty() {
+        return products == 0 && units == 0 && value.signum() == 0;
+    }
+}
@@ -3,14 +3,18 @@ package id.my.hendisantika.crudredis.model;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.With;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.redis.core.RedisHash;
+import org.springframework.data.redis.core.index.Indexed;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.util.Locale;
 
 /**
  * Created by IntelliJ IDEA.
@@ -46,9 +50,35 @@ public class Product implements Serializable {
     @Positive(message = "Price must be positive")
     private BigDecimal price;
 
+    /**
+     * Units available. Reaches zero through the stock operations, so zero is valid; use those operations
+     * rather than a full save to change it concurrently.
+     */
     @NotNull(message = "Quantity is required")
-    @Positive(message = "Quantity must be positive")
+    @PositiveOrZero(message = "Quantity cannot be negative")
+    @With
     private Integer quantity;
 
     private String category;
+
+    /**
+     * Lower-cased copy of {@link #category}, indexed by Spring Data Redis as
+     * {@code Product:categoryKey:<value>} so category lookups only touch matching ids.
+     */
+    @Indexed
+    private String categoryKey;
+
+    /**
+     * Epoch millis of the first save, the score of the {@code products:created} paging index.
+     */
+    private Long createdAt;
+
+    public void setCategory(String category) {
+        this.category = category;
+        this.categoryKey = normalizeCategory(category);
+    }
+
+    public static String normalizeCategory(String category) {
+        return category == null || category.isBlank() ? null : category.trim().toLowerCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,67 @@
+package id.my.hendisantika.crudredis.model;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 15.30
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * One entry of the product change feed: which product changed and how, with the fields a listing shows so most
+ * consumers don't have to fetch the product. Everything but {@code op} and {@code id} is {@code null} for a delete.
+ *
+ * @param op {@link #UPSERT} when the product was created or changed, {@link #DELETE} when it was removed
+ */
+public record ProductChange(String op, String id, String name, String category, BigDecimal price, Integer quantity) {
+
+    public static final String UPSERT = "upsert";
+    public static final String DELETE = "delete";
+
+    public static ProductChange upsert(Product product) {
+        return new ProductChange(UPSERT, product.getId(), product.getName(), product.getCategory(),
+                product.getPrice(), product.getQuantity());
+    }
+
+    public static ProductChange delete(String id) {
+        return new ProductChange(DELETE, id, null, null, null, null);
+    }
+
+    /**
+     * The stream entry's fields; {@code null} values are left out.
+     */
+    public Map<String, String> toFields() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("op", op);
+        fields.put("id", id);
+        if (name != null) {
+            fields.put("name", name);
+        }
+        if (category != null) {
+            fields.put("category", category);
+        }
+        if (price != null) {
+            fields.put("price", price.toPlainString());
+        }
+        if (quantity != null) {
+            fields.put("quantity", quantity.toString());
+        }
+        return fields;
+    }
+
+    public static ProductChange fromFields(Map<String, String> fields) {
+        String price = fields.get("price");
+        String quantity = fields.get("quantity");
+        return new ProductChange(fields.get("op"), fields.get("id"), fields.get("name"), fields.get("category"),
+                price == null ? null : new BigDecimal(price), quantity == null ? null : Integer.valueOf(quantity));
+    }
+}
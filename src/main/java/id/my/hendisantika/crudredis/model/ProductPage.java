@@ -0,0 +1,33 @@
+package id.my.hendisantika.crudredis.model;
+
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 11.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * One page of products, newest first.
+ *
+ * @param previousCursor cursor for the newer page, {@code null} on the first page
+ * @param nextCursor     cursor for the older page, {@code null} on the last page
+ * @param total          total number of products, taken from the index rather than counted
+ */
+public record ProductPage(List<Product> products, String previousCursor, String nextCursor, long total) {
+
+    public boolean hasPrevious() {
+        return previousCursor != null;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,26 @@
+package id.my.hendisantika.crudredis.model;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 23.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Result of an atomic stock adjustment.
+ *
+ * @param product          the product as stored right after the adjustment
+ * @param previousQuantity the quantity right before it
+ */
+public record StockChange(Product product, int previousQuantity) {
+
+    public int quantity() {
+        return product.getQuantity();
+    }
+}
@@ -0,0 +1,32 @@
+package id.my.hendisantika.crudredis.model;
+
+import java.util.stream.Stream;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 17.30
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * A {@link ProductPage} whose products are fetched while they are consumed. The cursors and the total come from the
+ * creation-time index, so they are known before any product is read.
+ *
+ * @param products consumed once, in page order
+ */
+public record StreamedProductPage(Stream<Product> products, String previousCursor, String nextCursor, long total) {
+
+    public boolean hasPrevious() {
+        return previousCursor != null;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,183 @@
+package id.my.hendisantika.crudredis.projection;
+
+import id.my.hendisantika.crudredis.feed.ProductChangeFeed;
+import id.my.hendisantika.crudredis.feed.ProductChangeListener;
+import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.model.ProductChange;
+import id.my.hendisantika.crudredis.repository.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 17.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * In-process read model of the catalog for the filter pages, enabled with {@code products.projection.enabled=true}.
+ * <p>
+ * Once the application is ready the catalog is loaded into {@link ProductColumns} with SSCAN and pipelined
+ * HGETALLs, then kept current from {@link ProductChangeFeed}, starting at the last entry before the load so no
+ * change is missed. Until loaded, and when the feed can't be followed, {@link #current()} is empty and the service
+ * answers from the Redis indexes; a reload is retried after {@code products.projection.retry-delay}. Like the
+ * other listings, the projection sees write-behind saves once they are flushed.
+ * <p>
+ * The {@code products.projection.size} gauge is the number of products held.
+ */
+@Component
+@Slf4j
+public class CatalogProjection {
+
+    private final ProductRepository productRepository;
+    private final ProductChangeFeed productChangeFeed;
+    private final Executor executor;
+    private final boolean enabled;
+    private final Duration retryDelay;
+
+    private volatile ProductColumns columns;
+    private ProductChangeFeed.Subscription subscription;
+    private boolean stopped;
+
+    public CatalogProjection(ProductRepository productRepository, ProductChangeFeed productChangeFeed,
+                             @Qualifier("applicationTaskExecutor") Executor executor, MeterRegistry meterRegistry,
+                             @Value("${products.projection.enabled:false}") boolean enabled,
+                             @Value("${products.projection.retry-delay:30s}") Duration retryDelay) {
+        this.productRepository = productRepository;
+        this.productChangeFeed = productChangeFeed;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.retryDelay = retryDelay;
+        Gauge.builder("products.projection.size", this,
+                        projection -> projection.current().map(ProductColumns::size).orElse(0))
+                .description("Products held by the in-process catalog projection")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether the projection is used at all, loaded yet or not.
+     */
+    public boolean isEnabled() {
+        return enabled && productChangeFeed.isEnabled();
+    }
+
+    /**
+     * The loaded projection, empty while it is disabled, loading or can't follow the change feed.
+     */
+    public Optional<ProductColumns> current() {
+        return Optional.ofNullable(columns);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (!productChangeFeed.isEnabled()) {
+            log.warn("The catalog projection follows the product change feed, enable products.changes.enabled");
+            return;
+        }
+        executor.execute(this::load);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        stopped = true;
+        columns = null;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private synchronized void load() {
+        if (stopped) {
+            return;
+        }
+        columns = null;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        try {
+            long started = System.nanoTime();
+            String from = productChangeFeed.latestId();
+            ProductColumns loaded = new ProductColumns();
+            try (Stream<Product> products = productRepository.streamAll()) {
+                products.forEach(loaded::put);
+            }
+            subscription = productChangeFeed.subscribe(new Follower(loaded), from);
+            columns = loaded;
+            log.info("Catalog projection loaded {} products in {} ms", loaded.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (RuntimeException e) {
+            log.warn("Loading the catalog projection failed, retrying in {}: {}", retryDelay, e.getMessage());
+            reloadLater();
+        }
+    }
+
+    private void reloadLater() {
+        CompletableFuture.delayedExecutor(retryDelay.toMillis(), TimeUnit.MILLISECONDS, executor).execute(this::load);
+    }
+
+    /**
+     * Applies the changes to the columns of one load; a reload starts over with new columns and a new follower.
+     */
+    private final class Follower implements ProductChangeListener {
+
+        private final ProductColumns target;
+
+        Follower(ProductColumns target) {
+            this.target = target;
+        }
+
+        @Override
+        public void onChange(String streamId, ProductChange change) {
+            target.apply(change);
+        }
+
+        @Override
+        public void onReset(String firstId) {
+            log.warn("Changes the catalog projection missed were trimmed from the feed, reloading it");
+            retire();
+            executor.execute(CatalogProjection.this::load);
+        }
+
+        @Override
+        public void onFailure(Exception cause) {
+            log.warn("The catalog projection stopped following the change feed, reloading in {}: {}", retryDelay,
+                    cause.getMessage());
+            retire();
+            reloadLater();
+        }
+
+        /**
+         * Stops serving queries from these columns, unless a newer load already replaced them.
+         */
+        private void retire() {
+            synchronized (CatalogProjection.this) {
+                if (columns == target) {
+                    columns = null;
+                }
+            }
+        }
+    }
+}
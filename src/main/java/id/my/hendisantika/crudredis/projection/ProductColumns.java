@@ -0,0 +1,322 @@
+package id.my.hendisantika.crudredis.projection;
+
+import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.model.ProductChange;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.function.IntToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 16.45
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * The filterable fields of every product in parallel arrays, one row per product: price in cents ({@code long}),
+ * quantity ({@code int}), category as an index into a dictionary of the distinct categories ({@code int}) and the
+ * lower-cased name, interned. A filter is a loop over the arrays, run in parallel from
+ * {@value #PARALLEL_THRESHOLD} rows on; only the ids of the matches come out.
+ * <p>
+ * Rows of removed products are reused. Queries share a read lock, changes take the write lock.
+ */
+public final class ProductColumns {
+
+    static final int PARALLEL_THRESHOLD = 50_000;
+
+    private static final long NO_PRICE = Long.MIN_VALUE;
+    private static final int NO_QUANTITY = Integer.MIN_VALUE;
+    private static final int NO_CATEGORY = -1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> rowsById = new HashMap<>();
+    private final Map<String, Integer> categoryCodes = new HashMap<>();
+
+    private String[] ids;
+    private String[] names;
+    private int[] categories;
+    private long[] prices;
+    private int[] quantities;
+    private int rows;
+    private int[] freeRows = new int[16];
+    private int freeCount;
+
+    public ProductColumns() {
+        this(1024);
+    }
+
+    public ProductColumns(int capacity) {
+        ids = new String[capacity];
+        names = new String[capacity];
+        categories = new int[capacity];
+        prices = new long[capacity];
+        quantities = new int[capacity];
+    }
+
+    public void put(Product product) {
+        put(product.getId(), product.getName(), product.getCategory(), product.getPrice(), product.getQuantity());
+    }
+
+    public void apply(ProductChange change) {
+        if (ProductChange.DELETE.equals(change.op())) {
+            remove(change.id());
+        } else {
+            put(change.id(), change.name(), change.category(), change.price(), change.quantity());
+        }
+    }
+
+    public void put(String id, String name, String category, BigDecimal price, Integer quantity) {
+        lock.writeLock().lock();
+        try {
+            int row = rowsById.computeIfAbsent(id, newId -> allocate());
+            ids[row] = id;
+            names[row] = name == null ? null : name.toLowerCase().intern();
+            categories[row] = categoryCode(Product.normalizeCategory(category));
+            prices[row] = price == null ? NO_PRICE : cents(price, RoundingMode.HALF_UP);
+            quantities[row] = quantity == null ? NO_QUANTITY : quantity;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowsById.remove(id);
+            if (row == null) {
+                return;
+            }
+            ids[row] = null;
+            names[row] = null;
+            categories[row] = NO_CATEGORY;
+            prices[row] = NO_PRICE;
+            quantities[row] = NO_QUANTITY;
+            if (freeCount == freeRows.length) {
+                freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+            }
+            freeRows[freeCount++] = row;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the products in the category, compared like {@link Product#normalizeCategory}.
+     */
+    public List<String> idsInCategory(String category) {
+        lock.readLock().lock();
+        try {
+            Integer code = categoryCodes.get(Product.normalizeCategory(category));
+            if (code == null) {
+                return List.of();
+            }
+            int wanted = code;
+            return ids(row -> categories[row] == wanted);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the products whose name contains {@code term}, ignoring case.
+     */
+    public List<String> idsNamed(String term) {
+        String wanted = term.toLowerCase().trim();
+        lock.readLock().lock();
+        try {
+            return ids(row -> names[row] != null && names[row].contains(wanted));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A page of the ids priced between {@code min} and {@code max} (inclusive, {@code null} for open bounds), in the
+     * order of the {@code products:price} index: by price, then by id.
+     */
+    public List<String> idsByPrice(BigDecimal min, BigDecimal max, boolean descending, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return page(row -> prices[row], priceRange(min, max), descending, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long countByPrice(BigDecimal min, BigDecimal max) {
+        lock.readLock().lock();
+        try {
+            return rows(priceRange(min, max)).count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Like {@link #idsByPrice} for the quantity in stock.
+     */
+    public List<String> idsByQuantity(Integer min, Integer max, boolean descending, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return page(row -> quantities[row], quantityRange(min, max), descending, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long countByQuantity(Integer min, Integer max) {
+        lock.readLock().lock();
+        try {
+            return rows(quantityRange(min, max)).count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A page of the ids within both the price and the quantity bounds, in the order of the quantity index when
+     * {@code byQuantity} is set and of the price index otherwise.
+     */
+    public List<String> idsByPriceAndQuantity(BigDecimal minPrice, BigDecimal maxPrice, Integer minQuantity,
+                                              Integer maxQuantity, boolean byQuantity, boolean descending,
+                                              int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            IntToLongFunction key = byQuantity ? row -> quantities[row] : row -> prices[row];
+            return page(key, priceRange(minPrice, maxPrice).and(quantityRange(minQuantity, maxQuantity)),
+                    descending, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long countByPriceAndQuantity(BigDecimal minPrice, BigDecimal maxPrice, Integer minQuantity,
+                                        Integer maxQuantity) {
+        lock.readLock().lock();
+        try {
+            return rows(priceRange(minPrice, maxPrice).and(quantityRange(minQuantity, maxQuantity))).count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private IntPredicate priceRange(BigDecimal min, BigDecimal max) {
+        long from = min == null ? NO_PRICE + 1 : cents(min, RoundingMode.CEILING);
+        long to = max == null ? Long.MAX_VALUE : cents(max, RoundingMode.FLOOR);
+        return row -> prices[row] != NO_PRICE && prices[row] >= from && prices[row] <= to;
+    }
+
+    private IntPredicate quantityRange(Integer min, Integer max) {
+        int from = min == null ? NO_QUANTITY + 1 : min;
+        int to = max == null ? Integer.MAX_VALUE : max;
+        return row -> quantities[row] != NO_QUANTITY && quantities[row] >= from && quantities[row] <= to;
+    }
+
+    private List<String> ids(IntPredicate matches) {
+        return rows(matches).mapToObj(row -> ids[row]).toList();
+    }
+
+    private IntStream rows(IntPredicate matches) {
+        IntStream rows = IntStream.range(0, this.rows);
+        return (this.rows >= PARALLEL_THRESHOLD ? rows.parallel() : rows).filter(matches);
+    }
+
+    /**
+     * Rows {@code offset} to {@code offset + limit} in order: each chunk of rows keeps its best
+     * {@code offset + limit} in a bounded heap, so only those are boxed and compared.
+     */
+    private List<String> page(IntToLongFunction key, IntPredicate matches, boolean descending, int offset, int limit) {
+        int wanted = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        if (limit <= 0 || wanted == 0) {
+            return List.of();
+        }
+        Comparator<Integer> ascending = Comparator.<Integer>comparingLong(key::applyAsLong).thenComparing(row -> ids[row]);
+        Comparator<Integer> order = descending ? ascending.reversed() : ascending;
+
+        int chunks = rows >= PARALLEL_THRESHOLD ? Runtime.getRuntime().availableProcessors() : 1;
+        int chunkSize = Math.max(1, (rows + chunks - 1) / chunks);
+        IntStream chunkStream = IntStream.range(0, chunks);
+        List<Integer> best = (chunks > 1 ? chunkStream.parallel() : chunkStream)
+                .mapToObj(chunk -> best(chunk * chunkSize, Math.min(rows, (chunk + 1) * chunkSize), matches, order, wanted))
+                .reduce((left, right) -> {
+                    right.forEach(row -> keep(left, row, order, wanted));
+                    return left;
+                })
+                .map(ArrayList::new)
+                .orElseGet(ArrayList::new);
+
+        best.sort(order);
+        return best.stream().skip(offset).map(row -> ids[row]).toList();
+    }
+
+    private static PriorityQueue<Integer> best(int from, int to, IntPredicate matches, Comparator<Integer> order,
+                                               int wanted) {
+        // The worst kept row is at the head, to be replaced by a better one
+        PriorityQueue<Integer> kept = new PriorityQueue<>(order.reversed());
+        for (int row = from; row < to; row++) {
+            if (matches.test(row)) {
+                keep(kept, row, order, wanted);
+            }
+        }
+        return kept;
+    }
+
+    private static void keep(PriorityQueue<Integer> kept, int row, Comparator<Integer> order, int wanted) {
+        if (kept.size() < wanted) {
+            kept.add(row);
+        } else if (order.compare(row, kept.peek()) < 0) {
+            kept.poll();
+            kept.add(row);
+        }
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeRows[--freeCount];
+        }
+        if (rows == ids.length) {
+            int capacity = Math.max(16, rows + (rows >> 1));
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+        }
+        return rows++;
+    }
+
+    private int categoryCode(String category) {
+        return category == null ? NO_CATEGORY : categoryCodes.computeIfAbsent(category, added -> categoryCodes.size());
+    }
+
+    private static long cents(BigDecimal amount, RoundingMode rounding) {
+        return amount.movePointRight(2).setScale(0, rounding).longValueExact();
+    }
+}
@@ -0,0 +1,113 @@
+package id.my.hendisantika.crudredis.repository;
+
+import id.my.hendisantika.crudredis.codec.ProductCodec;
+import id.my.hendisantika.crudredis.codec.ProductRedisSerializer;
+import id.my.hendisantika.crudredis.index.ProductKeys;
+import id.my.hendisantika.crudredis.model.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.convert.Bucket;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 16.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Maps {@code Product:<id>} hashes, for the repository and for reads outside it (pipelines, scripts, reactive
+ * reads), so every path stores and reads the same layout.
+ * <p>
+ * {@link Format#BINARY} stores two fields: {@value #ENCODED} holds the product encoded by
+ * {@link ProductRedisSerializer}, without its id (the key has it) or quantity, which is kept as a decimal
+ * {@value #QUANTITY} field because the stock script adjusts it in place. {@link Format#HASH} is the layout of
+ * the {@code @RedisHash} mapping, one text field per property, minus the {@code _class} type hint; it is for
+ * rolling upgrades, while instances that can't read the binary layout are still running.
+ * <p>
+ * Both layouts are always read, so hashes written before the switch stay readable until they are next saved
+ * (or rewritten by {@link id.my.hendisantika.crudredis.index.ProductIndexMigration#rebuild()}).
+ */
+@Component
+public class ProductHashMapper {
+
+    public enum Format {
+        BINARY,
+        HASH
+    }
+
+    /**
+     * The field of the encoded product; short, since the name is stored in every product hash.
+     */
+    public static final String ENCODED = "p";
+    public static final String QUANTITY = "quantity";
+
+    private static final String TYPE_HINT = "_class";
+    private static final byte[] ENCODED_FIELD = ENCODED.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] QUANTITY_FIELD = QUANTITY.getBytes(StandardCharsets.UTF_8);
+
+    private final RedisConverter redisConverter;
+    private final Format writeFormat;
+    private final ProductRedisSerializer productRedisSerializer = new ProductRedisSerializer();
+
+    public ProductHashMapper(RedisConverter redisConverter,
+                             @Value("${products.codec.write-format:binary}") Format writeFormat) {
+        this.redisConverter = redisConverter;
+        this.writeFormat = writeFormat;
+    }
+
+    /**
+     * @param hash the raw fields and values, as HGETALL returns them
+     * @return the product, or {@code null} when the hash is missing or empty
+     */
+    public Product read(String id, Map<byte[], byte[]> hash) {
+        if (hash == null || hash.isEmpty()) {
+            return null;
+        }
+        Bucket bucket = Bucket.newBucketFromRawMap(hash);
+        byte[] encoded = bucket.get(ENCODED);
+        if (ProductCodec.isEncoded(encoded)) {
+            Product product = productRedisSerializer.deserialize(encoded);
+            product.setId(id);
+            byte[] quantity = bucket.get(QUANTITY);
+            product.setQuantity(quantity == null
+                    ? null : Integer.valueOf(new String(quantity, StandardCharsets.US_ASCII)));
+            return product;
+        }
+        RedisData data = new RedisData(bucket);
+        data.setId(id);
+        data.setKeyspace(ProductKeys.KEYSPACE);
+        return redisConverter.read(Product.class, data);
+    }
+
+    /**
+     * The hash fields and values to store for the product, in the configured write format.
+     */
+    public Map<byte[], byte[]> write(Product product) {
+        if (writeFormat == Format.HASH) {
+            RedisData data = new RedisData();
+            redisConverter.write(product, data);
+            data.getBucket().remove(TYPE_HINT);
+            return data.getBucket().rawMap();
+        }
+        Product stored = product.withQuantity(null);
+        stored.setId(null);
+        Map<byte[], byte[]> hash = new HashMap<>(4);
+        hash.put(ENCODED_FIELD, productRedisSerializer.serialize(stored));
+        if (product.getQuantity() != null) {
+            hash.put(QUANTITY_FIELD, String.valueOf(product.getQuantity()).getBytes(StandardCharsets.US_ASCII));
+        }
+        return hash;
+    }
+}
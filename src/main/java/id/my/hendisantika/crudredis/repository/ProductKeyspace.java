@@ -0,0 +1,61 @@
+package id.my.hendisantika.crudredis.repository;
+
+import id.my.hendisantika.crudredis.index.ProductKeys;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 09.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Access to the {@code Product} id set Spring Data Redis maintains, and to other id sets, without commands whose
+ * cost grows with the set: the count is SCARD (the cardinality Redis keeps with the set), emptiness is EXISTS
+ * (Redis drops a set with its last member), and traversals are SSCAN cursors returning
+ * {@code products.repository.pipeline-batch-size} ids per call. Never SMEMBERS or KEYS.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductKeyspace {
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${products.repository.pipeline-batch-size:200}")
+    private int batchSize;
+
+    public long count() {
+        Long count = stringRedisTemplate.opsForSet().size(ProductKeys.KEYSPACE);
+        return count == null ? 0 : count;
+    }
+
+    public boolean isEmpty() {
+        return !Boolean.TRUE.equals(stringRedisTemplate.hasKey(ProductKeys.KEYSPACE));
+    }
+
+    /**
+     * Every product id. The cursor must be closed; ids added or removed during the scan may or may not be
+     * returned, and an id may be returned more than once.
+     */
+    public Cursor<String> scanIds() {
+        return scanMembers(ProductKeys.KEYSPACE);
+    }
+
+    /**
+     * Every member of an id set such as a category index, with the same guarantees as {@link #scanIds()}.
+     */
+    public Cursor<String> scanMembers(String setKey) {
+        return stringRedisTemplate.opsForSet().scan(setKey, ScanOptions.scanOptions().count(batchSize).build());
+    }
+}
@@ -0,0 +1,54 @@
+package id.my.hendisantika.crudredis.repository;
+
+import id.my.hendisantika.crudredis.model.Product;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 12.30
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Bulk reads that fetch product hashes in pipelined batches instead of one HGETALL round trip per id.
+ * Batch size is {@code products.repository.pipeline-batch-size}.
+ */
+public interface ProductReads {
+
+    /**
+     * Pipelined counterpart of {@code findAllById}. Missing ids are skipped, order is not preserved.
+     */
+    List<Product> findAllByIdPipelined(Collection<String> ids);
+
+    /**
+     * Products in the {@code Product:categoryKey:<key>} index set, walked with SSCAN and fetched in pipelined batches.
+     */
+    List<Product> findByCategoryKeyPipelined(String categoryKey);
+
+    /**
+     * Streams every product, walking the id set with SSCAN and fetching one pipelined batch at a time.
+     * The stream must be closed to release the scan cursor.
+     */
+    Stream<Product> streamAll();
+
+    /**
+     * Like {@link #streamAll()}, fetching only the products whose id matches; the others are never read.
+     */
+    Stream<Product> streamAll(Predicate<String> ids);
+
+    /**
+     * Streams the products with the given ids in that order, fetching one pipelined batch when the stream reaches
+     * it. Missing ids are skipped. Holds no cursor, so it needn't be closed.
+     */
+    Stream<Product> streamAllById(List<String> ids);
+}
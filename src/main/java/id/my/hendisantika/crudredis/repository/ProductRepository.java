@@ -1,7 +1,6 @@
 package id.my.hendisantika.crudredis.repository;
 
 import id.my.hendisantika.crudredis.model.Product;
-import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -19,10 +18,13 @@ import org.springframework.stereotype.Repository;
 /**
  * Product repository for Redis operations
  * Note: Redis doesn't support complex query derivation like JPA.
- * For searching/filtering, use service layer with manual filtering.
+ * None of Spring Data's CRUD methods is used. The single-product ones are declared and implemented by
+ * {@link ProductRepositoryCustom}, so products are stored in the layout of {@link ProductHashMapper} rather than
+ * the {@code @RedisHash} mapping's; {@code findAll} is left out, it would read the whole {@code Product} id set
+ * with SMEMBERS, which blocks Redis on a large catalog. Traverse with {@link ProductRepositoryCustom#streamAll()}
+ * and count with {@link ProductKeyspace}.
  */
 @Repository
-public interface ProductRepository extends CrudRepository<Product, String> {
-    // Basic CRUD operations only
-    // Search functionality implemented in service layer
+public interface ProductRepository extends org.springframework.data.repository.Repository<Product, String>,
+        ProductRepositoryCustom {
 }
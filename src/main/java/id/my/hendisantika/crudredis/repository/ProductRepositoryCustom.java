@@ -0,0 +1,81 @@
+package id.my.hendisantika.crudredis.repository;
+
+import id.my.hendisantika.crudredis.exception.StockException;
+import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.model.StockChange;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 13.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Single-product CRUD, pipelined bulk reads and writes, and atomic stock scripts. The {@link ProductReads}
+ * inherited here read the primary; {@link #replicaReads()} serves the same reads from replicas.
+ */
+public interface ProductRepositoryCustom extends ProductReads {
+
+    /**
+     * The bulk reads, served by {@code ReplicaRedisTemplate}: for lookups, listings and searches, which may see a
+     * change a replication delay late. Never for the stored state a write is computed from.
+     */
+    ProductReads replicaReads();
+
+    /**
+     * Writes the product, replacing what was stored under its id, and generates an id for new products.
+     * Reads the stored state first, to move the product out of its previous category index.
+     */
+    Product save(Product product);
+
+    Optional<Product> findById(String id);
+
+    /**
+     * Products that exist, in the iteration order of {@code ids}, fetched in pipelined batches.
+     */
+    List<Product> findAllById(Iterable<String> ids);
+
+    boolean existsById(String id);
+
+    /**
+     * Removes the product as {@link #deletePipelined} does; does nothing when it doesn't exist.
+     */
+    void deleteById(String id);
+
+    /**
+     * Writes the product the way {@link #save} does (hash, id set and category index) without reading anything
+     * back, so it can be queued in a pipeline opened by the caller.
+     *
+     * @param previous the stored state, used to drop the old category index entry; {@code null} for new products
+     */
+    void writePipelined(Product product, Product previous);
+
+    /**
+     * Removes the product (hash, id set, category index, index helper) and its reserved-unit counter, with
+     * UNLINK and without reading anything back, so it can be queued in a pipeline.
+     */
+    void deletePipelined(Product previous);
+
+    /**
+     * Applies the quantity deltas, and the matching reserved-unit deltas, in one atomic script call.
+     * Either every product is adjusted or none is. In a Redis Cluster a script can only touch one hash slot, so
+     * products in different slots are adjusted slot by slot; when a later slot fails, the slots already adjusted
+     * are adjusted back, and other clients may see the partial change meanwhile.
+     *
+     * @param quantityDeltas units to add to (or, negative, take from) each product's quantity, by id
+     * @param reservedDeltas units to add to each product's reserved counter, by id; missing ids mean 0
+     * @return one change per id, in the iteration order of {@code quantityDeltas}
+     * @throws StockException naming the first product that is missing or would go below zero
+     */
+    List<StockChange> adjustStock(Map<String, Integer> quantityDeltas, Map<String, Integer> reservedDeltas);
+}
@@ -0,0 +1,443 @@
+package id.my.hendisantika.crudredis.repository;
+
+import id.my.hendisantika.crudredis.config.RedisTopology;
+import id.my.hendisantika.crudredis.config.ReplicaRedisTemplate;
+import id.my.hendisantika.crudredis.exception.StockException;
+import id.my.hendisantika.crudredis.index.ProductKeys;
+import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.model.StockChange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 13.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Pipelined implementation of {@link ProductRepositoryCustom}. Every read and write of a product hash goes
+ * through {@link ProductHashMapper}, single-product CRUD included, so all of them share its layout.
+ */
+@Slf4j
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    /**
+     * Loaded once, so its SHA1 is computed once; executed with EVALSHA, falling back to EVAL after a script flush.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> STOCK_ADJUST_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/stock-adjust.lua"), List.class);
+
+    /**
+     * Leaves the script's bulk replies as bytes, for {@link ProductHashMapper#read}; integers stay numbers.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final RedisSerializer<List> RAW_REPLY = (RedisSerializer) RedisSerializer.byteArray();
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ProductHashMapper productHashMapper;
+    private final RedisTopology redisTopology;
+    private final Executor taskExecutor;
+    private final Reads primaryReads;
+    private final Reads replicaReads;
+
+    @Value("${products.repository.pipeline-batch-size:200}")
+    private int batchSize;
+
+    /**
+     * Pipelines run concurrently per {@link #findAllByIdPipelined} call, each on its own pooled connection.
+     * Meant for virtual threads, where the fan-out costs nothing but pool connections.
+     */
+    @Value("${products.repository.fetch-parallelism:1}")
+    private int fetchParallelism;
+
+    public ProductRepositoryCustomImpl(StringRedisTemplate stringRedisTemplate,
+                                       ReplicaRedisTemplate replicaRedisTemplate,
+                                       ProductHashMapper productHashMapper, ProductKeyspace productKeyspace,
+                                       RedisTopology redisTopology,
+                                       @Qualifier("applicationTaskExecutor") Executor taskExecutor) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.productHashMapper = productHashMapper;
+        this.redisTopology = redisTopology;
+        this.taskExecutor = taskExecutor;
+        this.primaryReads = new Reads(stringRedisTemplate, productKeyspace::scanMembers);
+        this.replicaReads = new Reads(replicaRedisTemplate, setKey -> replicaRedisTemplate.opsForSet()
+                .scan(setKey, ScanOptions.scanOptions().count(batchSize).build()));
+    }
+
+    @Override
+    public ProductReads replicaReads() {
+        return replicaReads;
+    }
+
+    @Override
+    public List<Product> findAllByIdPipelined(Collection<String> ids) {
+        return primaryReads.findAllByIdPipelined(ids);
+    }
+
+    @Override
+    public List<Product> findByCategoryKeyPipelined(String categoryKey) {
+        return primaryReads.findByCategoryKeyPipelined(categoryKey);
+    }
+
+    @Override
+    public Stream<Product> streamAll() {
+        return primaryReads.streamAll();
+    }
+
+    @Override
+    public Stream<Product> streamAll(Predicate<String> ids) {
+        return primaryReads.streamAll(ids);
+    }
+
+    @Override
+    public Stream<Product> streamAllById(List<String> ids) {
+        return primaryReads.streamAllById(ids);
+    }
+
+    @Override
+    public Product save(Product product) {
+        if (product.getId() == null || product.getId().isEmpty()) {
+            product.setId(UUID.randomUUID().toString());
+        }
+        Product previous = findById(product.getId()).orElse(null);
+        pipelined(() -> writePipelined(product, previous));
+        return product;
+    }
+
+    @Override
+    public Optional<Product> findById(String id) {
+        return primaryReads.findAllByIdPipelined(List.of(id)).stream().findFirst();
+    }
+
+    @Override
+    public List<Product> findAllById(Iterable<String> ids) {
+        List<String> idList = new ArrayList<>();
+        ids.forEach(idList::add);
+        return primaryReads.findAllByIdPipelined(idList);
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return Boolean.TRUE.equals(stringRedisTemplate.hasKey(ProductKeys.hash(id)));
+    }
+
+    @Override
+    public void deleteById(String id) {
+        findById(id).ifPresent(previous -> pipelined(() -> deletePipelined(previous)));
+    }
+
+    @Override
+    public void writePipelined(Product product, Product previous) {
+        stringRedisTemplate.execute((RedisCallback<Object>) connection -> {
+            byte[] key = bytes(ProductKeys.hash(product.getId()));
+            byte[] id = bytes(product.getId());
+            byte[] indexHelper = bytes(ProductKeys.indexHelper(product.getId()));
+
+            connection.keyCommands().del(key);
+            connection.hashCommands().hMSet(key, productHashMapper.write(product));
+            connection.setCommands().sAdd(bytes(ProductKeys.KEYSPACE), id);
+
+            if (previous != null && previous.getCategoryKey() != null) {
+                connection.setCommands().sRem(bytes(ProductKeys.category(previous.getCategoryKey())), id);
+            }
+            connection.keyCommands().del(indexHelper);
+            if (product.getCategoryKey() != null) {
+                byte[] categoryIndex = bytes(ProductKeys.category(product.getCategoryKey()));
+                connection.setCommands().sAdd(categoryIndex, id);
+                connection.setCommands().sAdd(indexHelper, categoryIndex);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void deletePipelined(Product previous) {
+        stringRedisTemplate.execute((RedisCallback<Object>) connection -> {
+            byte[] id = bytes(previous.getId());
+            connection.keyCommands().unlink(bytes(ProductKeys.hash(previous.getId())),
+                    bytes(ProductKeys.indexHelper(previous.getId())),
+                    bytes(ProductKeys.reservedStock(previous.getId())));
+            connection.setCommands().sRem(bytes(ProductKeys.KEYSPACE), id);
+            if (previous.getCategoryKey() != null) {
+                connection.setCommands().sRem(bytes(ProductKeys.category(previous.getCategoryKey())), id);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<StockChange> adjustStock(Map<String, Integer> quantityDeltas, Map<String, Integer> reservedDeltas) {
+        List<String> ids = new ArrayList<>(quantityDeltas.keySet());
+        if (!redisTopology.isCluster()) {
+            return runStockScript(ids, quantityDeltas, reservedDeltas);
+        }
+
+        // A script may only touch keys of one hash slot: adjust slot by slot, undoing the done slots on failure
+        Map<Integer, List<String>> idsBySlot = ids.stream().collect(Collectors.groupingBy(
+                id -> ClusterSlotHashUtil.calculateSlot(ProductKeys.hash(id)), LinkedHashMap::new, Collectors.toList()));
+        Map<String, StockChange> changes = new HashMap<>();
+        List<List<String>> adjusted = new ArrayList<>();
+        for (List<String> slotIds : idsBySlot.values()) {
+            try {
+                runStockScript(slotIds, quantityDeltas, reservedDeltas)
+                        .forEach(change -> changes.put(change.product().getId(), change));
+            } catch (StockException e) {
+                adjusted.reversed().forEach(done -> undoStock(done, quantityDeltas, reservedDeltas));
+                throw e;
+            }
+            adjusted.add(slotIds);
+        }
+        return ids.stream().map(changes::get).toList();
+    }
+
+    private List<StockChange> runStockScript(List<String> ids, Map<String, Integer> quantityDeltas,
+                                             Map<String, Integer> reservedDeltas) {
+        List<String> keys = new ArrayList<>(ids.size() * 2);
+        List<String> args = new ArrayList<>(ids.size() * 2);
+        for (String id : ids) {
+            keys.add(ProductKeys.hash(id));
+            keys.add(ProductKeys.reservedStock(id));
+            args.add(String.valueOf(quantityDeltas.get(id)));
+            args.add(String.valueOf(reservedDeltas.getOrDefault(id, 0)));
+        }
+
+        List<?> reply = stringRedisTemplate.execute(STOCK_ADJUST_SCRIPT, RedisSerializer.string(), RAW_REPLY,
+                keys, args.toArray());
+        int status = ((Number) reply.get(0)).intValue();
+        if (status != 0) {
+            String id = ids.get(((Number) reply.get(1)).intValue() - 1);
+            throw new StockException(id, switch (status) {
+                case 1 -> StockException.Reason.PRODUCT_NOT_FOUND;
+                case 2 -> StockException.Reason.INSUFFICIENT_STOCK;
+                default -> StockException.Reason.INSUFFICIENT_RESERVED;
+            });
+        }
+
+        List<StockChange> changes = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            int previousQuantity = ((Number) reply.get(1 + 2 * i)).intValue();
+            List<?> fields = (List<?>) reply.get(2 + 2 * i);
+            Map<byte[], byte[]> hash = new HashMap<>();
+            for (int field = 0; field < fields.size(); field += 2) {
+                hash.put((byte[]) fields.get(field), (byte[]) fields.get(field + 1));
+            }
+            changes.add(new StockChange(productHashMapper.read(ids.get(i), hash), previousQuantity));
+        }
+        return changes;
+    }
+
+    private void undoStock(List<String> ids, Map<String, Integer> quantityDeltas, Map<String, Integer> reservedDeltas) {
+        Map<String, Integer> quantityUndo = new HashMap<>();
+        Map<String, Integer> reservedUndo = new HashMap<>();
+        ids.forEach(id -> {
+            quantityUndo.put(id, -quantityDeltas.get(id));
+            reservedUndo.put(id, -reservedDeltas.getOrDefault(id, 0));
+        });
+        try {
+            runStockScript(ids, quantityUndo, reservedUndo);
+        } catch (StockException e) {
+            log.error("Could not undo the stock adjustment of {}, the products changed meanwhile", ids, e);
+        }
+    }
+
+    /**
+     * Runs the writes in one pipeline; the session binds its connection, so they are queued on it.
+     */
+    private void pipelined(Runnable writes) {
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                writes.run();
+                return null;
+            }
+        });
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void hGetAll(RedisConnection connection, List<String> ids) {
+        for (String id : ids) {
+            connection.hashCommands().hGetAll(ProductKeys.hash(id).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * The bulk reads over one template, the primary or the replica one.
+     */
+    private final class Reads implements ProductReads {
+
+        private final StringRedisTemplate redisTemplate;
+        private final Function<String, Cursor<String>> scanner;
+
+        private Reads(StringRedisTemplate redisTemplate, Function<String, Cursor<String>> scanner) {
+            this.redisTemplate = redisTemplate;
+            this.scanner = scanner;
+        }
+
+        @Override
+        public List<Product> findAllByIdPipelined(Collection<String> ids) {
+            List<List<String>> batches = new ArrayList<>();
+            List<String> batch = new ArrayList<>(Math.min(ids.size(), batchSize));
+            for (String id : ids) {
+                batch.add(id);
+                if (batch.size() == batchSize) {
+                    batches.add(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                batches.add(batch);
+            }
+
+            List<Product> products = new ArrayList<>(ids.size());
+            if (fetchParallelism <= 1 || batches.size() == 1) {
+                batches.forEach(batchIds -> products.addAll(fetch(batchIds)));
+                return products;
+            }
+
+            // Fan out in waves of fetchParallelism pipelines
+            for (int from = 0; from < batches.size(); from += fetchParallelism) {
+                List<CompletableFuture<List<Product>>> wave = batches
+                        .subList(from, Math.min(from + fetchParallelism, batches.size())).stream()
+                        .map(batchIds -> CompletableFuture.supplyAsync(() -> fetch(batchIds), taskExecutor))
+                        .toList();
+                wave.forEach(fetched -> products.addAll(fetched.join()));
+            }
+            return products;
+        }
+
+        @Override
+        public List<Product> findByCategoryKeyPipelined(String categoryKey) {
+            try (Stream<Product> products = stream(scanner.apply(ProductKeys.category(categoryKey)))) {
+                return products.collect(Collectors.toList());
+            }
+        }
+
+        @Override
+        public Stream<Product> streamAll() {
+            return stream(scanner.apply(ProductKeys.KEYSPACE));
+        }
+
+        @Override
+        public Stream<Product> streamAll(Predicate<String> ids) {
+            Cursor<String> cursor = scanner.apply(ProductKeys.KEYSPACE);
+            Iterator<String> matching = StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor,
+                    Spliterator.NONNULL), false).filter(ids).iterator();
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new BatchIterator(matching),
+                    Spliterator.NONNULL), false).onClose(cursor::close);
+        }
+
+        @Override
+        public Stream<Product> streamAllById(List<String> ids) {
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new BatchIterator(ids.iterator()),
+                    Spliterator.NONNULL | Spliterator.ORDERED), false);
+        }
+
+        private Stream<Product> stream(Cursor<String> ids) {
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new BatchIterator(ids),
+                    Spliterator.NONNULL), false).onClose(ids::close);
+        }
+
+        /**
+         * One pipelined round trip of HGETALLs for the given ids.
+         */
+        private List<Product> fetch(List<String> ids) {
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            // Raw bytes: the encoded product isn't text
+            List<Object> hashes = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                hGetAll(connection, ids);
+                return null;
+            }, RedisSerializer.byteArray());
+
+            List<Product> products = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                @SuppressWarnings("unchecked")
+                Map<byte[], byte[]> hash = (Map<byte[], byte[]>) hashes.get(i);
+                Product product = productHashMapper.read(ids.get(i), hash);
+                if (product != null) {
+                    products.add(product);
+                }
+            }
+            return products;
+        }
+
+        /**
+         * Pulls {@code batchSize} ids from a scan cursor or id list, fetches them in one pipeline and hands them out.
+         */
+        private final class BatchIterator implements Iterator<Product> {
+
+            private final Iterator<String> ids;
+            private Iterator<Product> current = Collections.emptyIterator();
+
+            private BatchIterator(Iterator<String> ids) {
+                this.ids = ids;
+            }
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && ids.hasNext()) {
+                    List<String> batch = new ArrayList<>(batchSize);
+                    while (batch.size() < batchSize && ids.hasNext()) {
+                        batch.add(ids.next());
+                    }
+                    current = fetch(batch).iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public Product next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        }
+    }
+}
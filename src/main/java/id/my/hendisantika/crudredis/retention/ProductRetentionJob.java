@@ -0,0 +1,197 @@
+package id.my.hendisantika.crudredis.retention;
+
+import id.my.hendisantika.crudredis.index.CategoryCreationIndex;
+import id.my.hendisantika.crudredis.index.CreationTimeIndex;
+import id.my.hendisantika.crudredis.index.ProductKeys;
+import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.scheduler.JobLeases;
+import id.my.hendisantika.crudredis.scheduler.Lease;
+import id.my.hendisantika.crudredis.scheduler.SlotPartition;
+import id.my.hendisantika.crudredis.service.ProductService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 10.30
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Deletes products according to {@link ProductRetentionProperties}: older than {@code max-age}, beyond
+ * {@code max-count}, and beyond each category's cap, oldest first in every case.
+ * <p>
+ * Candidates come from the creation-time sorted sets a batch at a time (ZRANGE/ZRANGEBYSCORE with a small
+ * limit), and each batch is removed with {@link ProductService#deleteProducts(java.util.Collection, Lease)}, one
+ * MULTI of UNLINKs. A run stops after {@code max-deletes-per-run}, so neither Redis nor the JVM is ever busy with
+ * one run for long; a large backlog is worked off over several runs. Deletions are counted as
+ * {@code products.retention.deleted{policy}}.
+ * <p>
+ * The job is split into {@code partitions} hash-slot ranges, see {@link JobLeases#runPartitioned}: every
+ * partition walks the same candidates but only deletes the products whose hash is in its slots, skipping past
+ * the others, so instances share the work. Each delete is fenced by the partition's lease, so an instance
+ * paused past its lease has its batch discarded rather than deleting after the new holder.
+ */
+@Component
+@ConditionalOnProperty(prefix = "products.retention", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ProductRetentionJob {
+
+    private final ProductRetentionProperties properties;
+    private final CreationTimeIndex creationTimeIndex;
+    private final CategoryCreationIndex categoryCreationIndex;
+    private final ProductService productService;
+    private final MeterRegistry meterRegistry;
+    private final JobLeases jobLeases;
+
+    @Scheduled(fixedDelayString = "${products.retention.interval:PT1M}",
+            initialDelayString = "${products.retention.interval:PT1M}")
+    public void applyRetention() {
+        jobLeases.runPartitioned("product-retention", properties.getPartitions(),
+                properties.getInterval().multipliedBy(3), this::applyRetention);
+    }
+
+    private void applyRetention(SlotPartition partition, Lease lease) {
+        Budget budget = new Budget(Math.ceilDiv(properties.getMaxDeletesPerRun(), partition.count()),
+                () -> jobLeases.isHeld(lease));
+
+        if (properties.getMaxAge() != null) {
+            long cutoff = System.currentTimeMillis() - properties.getMaxAge().toMillis();
+            deleteInBatches("max-age", partition, lease, budget,
+                    (offset, limit) -> creationTimeIndex.createdBefore(cutoff, offset, limit), null);
+        }
+        if (properties.getMaxCount() != null) {
+            deleteInBatches("max-count", partition, lease, budget, (offset, limit) -> creationTimeIndex.oldest(
+                    offset, Math.min(limit, creationTimeIndex.count() - properties.getMaxCount() - offset)), null);
+        }
+        properties.getCategoryCaps().forEach((category, cap) -> {
+            String categoryKey = Product.normalizeCategory(category);
+            if (categoryKey != null) {
+                deleteInBatches("category-cap", partition, lease, budget,
+                        (offset, limit) -> categoryCreationIndex.oldest(categoryKey, offset,
+                                Math.min(limit, categoryCreationIndex.count(categoryKey) - cap - offset)),
+                        categoryKey);
+            }
+        });
+
+        if (budget.used() > 0) {
+            log.info("Retention deleted {} products of partition {}/{}{}", budget.used(), partition.index(),
+                    partition.count(), budget.remaining() == 0 ? ", more are due next run" : "");
+        }
+    }
+
+    /**
+     * Deletes this partition's ids among those returned by {@code candidates} until it returns none or the
+     * budget is spent. Ids of other partitions stay in the index, so the next batch starts after them.
+     *
+     * @param categoryKey the category index the ids come from, purged of ids whose product is already gone
+     */
+    private void deleteInBatches(String policy, SlotPartition partition, Lease lease, Budget budget,
+                                 Candidates candidates, String categoryKey) {
+        Counter deleted = Counter.builder("products.retention.deleted")
+                .description("Products deleted by the retention job")
+                .tag("policy", policy)
+                .register(meterRegistry);
+        long skipped = 0;
+        while (budget.remaining() > 0 && budget.leaseHeld()) {
+            List<String> ids = candidates.next(skipped, properties.getBatchSize());
+            if (ids.isEmpty()) {
+                return;
+            }
+            List<String> own = ids.stream()
+                    .filter(id -> partition.contains(ProductKeys.hash(id)))
+                    .limit(budget.remaining())
+                    .toList();
+            skipped += ids.stream().filter(id -> !partition.contains(ProductKeys.hash(id))).count();
+            if (own.isEmpty()) {
+                continue;
+            }
+            OptionalInt existed = productService.deleteProducts(own, lease);
+            if (existed.isEmpty()) {
+                // The lease moved on before the batch committed; leaseHeld() stops the other policies too
+                return;
+            }
+            deleted.increment(existed.getAsInt());
+            if (categoryKey != null) {
+                categoryCreationIndex.remove(categoryKey, own);
+            }
+            budget.spend(own.size());
+            pause();
+        }
+    }
+
+    private void pause() {
+        if (properties.getBatchPause().isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(properties.getBatchPause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Retention candidates in deletion order.
+     */
+    @FunctionalInterface
+    private interface Candidates {
+
+        /**
+         * Up to {@code limit} candidates after skipping the first {@code offset}.
+         */
+        List<String> next(long offset, long limit);
+    }
+
+    private static final class Budget {
+
+        private final BooleanSupplier leaseHeld;
+        private int remaining;
+        private int used;
+
+        private Budget(int remaining, BooleanSupplier leaseHeld) {
+            this.remaining = remaining;
+            this.leaseHeld = leaseHeld;
+        }
+
+        /**
+         * Whether the run may go on; once the lease is lost it stops for good.
+         */
+        boolean leaseHeld() {
+            if (remaining > 0 && !leaseHeld.getAsBoolean()) {
+                log.warn("Retention lease lost, stopping after {} deletions", used);
+                remaining = 0;
+            }
+            return remaining > 0;
+        }
+
+        int remaining() {
+            return remaining;
+        }
+
+        int used() {
+            return used;
+        }
+
+        void spend(int count) {
+            remaining -= count;
+            used += count;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package id.my.hendisantika.crudredis.retention;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 10.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Retention policies applied by {@link ProductRetentionJob}. Policies left unset don't delete anything.
+ */
+@Data
+@ConfigurationProperties(prefix = "products.retention")
+public class ProductRetentionProperties {
+
+    /**
+     * Runs the retention job. Off by default, so nothing is ever deleted unless asked for.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Delay between the end of one run and the start of the next.
+     */
+    private Duration interval = Duration.ofMinutes(1);
+
+    /**
+     * Keep at most this many products, deleting the oldest first.
+     */
+    private Long maxCount;
+
+    /**
+     * Delete products created longer ago than this.
+     */
+    private Duration maxAge;
+
+    /**
+     * Most products kept per category (matched case-insensitively), deleting the oldest first.
+     */
+    private Map<String, Long> categoryCaps = new LinkedHashMap<>();
+
+    /**
+     * Products deleted per pipelined batch.
+     */
+    private int batchSize = 200;
+
+    /**
+     * Most products deleted by one run, split evenly among the partitions; anything beyond waits for the next run.
+     */
+    private int maxDeletesPerRun = 5000;
+
+    /**
+     * Hash-slot ranges the job is split into, each run by whichever instance holds its lease.
+     */
+    private int partitions = 4;
+
+    /**
+     * Pause between batches, so other clients' commands interleave with a long cleanup.
+     */
+    private Duration batchPause = Duration.ofMillis(10);
+}
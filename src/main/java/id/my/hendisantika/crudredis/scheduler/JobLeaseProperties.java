@@ -0,0 +1,41 @@
+package id.my.hendisantika.crudredis.scheduler;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 11.00
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Settings of the Redis leases that keep scheduled jobs from running on every instance, see {@link JobLeases}.
+ */
+@Data
+@ConfigurationProperties(prefix = "products.scheduler")
+public class JobLeaseProperties {
+
+    /**
+     * Name this instance holds leases under; a random UUID when unset. Must differ between instances.
+     */
+    private String instanceId;
+
+    /**
+     * How often the instance announces it is alive, for sharing partitioned jobs among live instances.
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    /**
+     * An instance whose last heartbeat is older than this no longer counts as live.
+     */
+    private Duration nodeTimeout = Duration.ofSeconds(45);
+}
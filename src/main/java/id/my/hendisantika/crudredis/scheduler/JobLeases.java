@@ -0,0 +1,270 @@
+package id.my.hendisantika.crudredis.scheduler;
+
+import id.my.hendisantika.crudredis.config.RedisTopology;
+import id.my.hendisantika.crudredis.index.ProductKeys;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 11.15
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Redis leases that let every instance behind the load balancer schedule the same jobs while only one of them
+ * runs each job, or each partition of it.
+ * <p>
+ * A lease is a key set with NX and a time to live by {@code scripts/lease-acquire.lua}; its holder renews it
+ * on every run, so leadership sticks to one instance and moves to another only once the holder stops renewing
+ * (it died, or was shut down and released it). Each new holder gets a fencing token from an INCR counter,
+ * greater than every token before it, and the lease holds {@code <token>:<holder>}.
+ * <p>
+ * A holder that was paused past its lease must not keep writing, so job writes are fenced in Redis itself:
+ * {@link #runFenced} queues them in a MULTI that WATCHes the lease key and only commits while it still holds
+ * this holder's token, and write scripts whose keys share the lease's slot compare {@link Lease#value()}
+ * with the lease key before writing. {@link #isHeld(Lease)} is the cheaper check jobs make before reading
+ * the next batch.
+ * <p>
+ * Partitioned jobs are split into {@link SlotPartition hash-slot ranges}, each under its own lease. Instances
+ * announce themselves with a heartbeat, and each takes at most its share of the partitions, handing back
+ * what it holds beyond that, so the partitions spread out as instances join and are picked up as they leave.
+ */
+@Component
+@Slf4j
+public class JobLeases {
+
+    private static final RedisScript<Long> ACQUIRE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/lease-acquire.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/lease-release.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisTopology redisTopology;
+    private final String instanceId;
+    private final Duration nodeTimeout;
+    private final Map<String, Lease> held = new ConcurrentHashMap<>();
+
+    public JobLeases(StringRedisTemplate stringRedisTemplate, RedisTopology redisTopology,
+                     JobLeaseProperties properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisTopology = redisTopology;
+        this.instanceId = StringUtils.hasText(properties.getInstanceId())
+                ? properties.getInstanceId() : UUID.randomUUID().toString();
+        this.nodeTimeout = properties.getNodeTimeout();
+        log.info("Scheduled jobs run under instance id {}", instanceId);
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Acquires the lease, or renews it when this instance already holds it.
+     *
+     * @return the lease, or empty while another instance holds it
+     */
+    public Optional<Lease> tryAcquire(String name, Duration ttl) {
+        long startedAt = System.nanoTime();
+        Long token = stringRedisTemplate.execute(ACQUIRE_SCRIPT,
+                List.of(ProductKeys.lease(name), ProductKeys.leaseFence(name)),
+                instanceId, String.valueOf(ttl.toMillis()));
+        if (token == null || token < 0) {
+            held.remove(name);
+            return Optional.empty();
+        }
+        Lease lease = new Lease(name, token, instanceId, startedAt + ttl.toNanos());
+        Lease previous = held.put(name, lease);
+        if (previous == null || previous.token() != token) {
+            log.info("Acquired lease {} with fencing token {}", name, token);
+        }
+        return Optional.of(lease);
+    }
+
+    /**
+     * Whether the lease is still this instance's: it hasn't run out locally and Redis still holds its token.
+     */
+    public boolean isHeld(Lease lease) {
+        return !lease.isExpired() && lease.value().equals(stringRedisTemplate.opsForValue().get(lease.key()));
+    }
+
+    public void release(Lease lease) {
+        held.remove(lease.name(), lease);
+        stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(lease.key()), lease.value());
+    }
+
+    /**
+     * Runs the writes only while the lease is still this holder's. They are queued in a MULTI after WATCHing
+     * the lease key and checking it holds {@link Lease#value()}, so if the lease expires or moves to another
+     * holder before EXEC, Redis discards all of them. Being queued, the writes must not read anything back,
+     * the same contract as the pipelined writes of {@link id.my.hendisantika.crudredis.index.ProductIndex}.
+     * <p>
+     * A cluster can't run a transaction over keys of several slots, so there the writes are pipelined after an
+     * {@link #isHeld} check; jobs whose writes span slots must tolerate a batch landing twice.
+     *
+     * @return whether the writes were applied
+     */
+    public boolean runFenced(Lease lease, Runnable writes) {
+        SessionCallback<Object> queued = new SessionCallback<>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                writes.run();
+                return null;
+            }
+        };
+        if (redisTopology.isCluster()) {
+            if (!isHeld(lease)) {
+                return false;
+            }
+            stringRedisTemplate.executePipelined(queued);
+            return true;
+        }
+
+        List<Object> results = stringRedisTemplate.execute(new SessionCallback<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> List<Object> execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redis = (RedisOperations<String, String>) operations;
+                redis.watch(lease.key());
+                if (lease.isExpired() || !lease.value().equals(redis.opsForValue().get(lease.key()))) {
+                    redis.unwatch();
+                    return null;
+                }
+                redis.multi();
+                queued.execute(redis);
+                return redis.exec();
+            }
+        });
+        // EXEC answers nil, or an empty list depending on the driver, when a watched key changed
+        boolean applied = results != null && !results.isEmpty();
+        if (!applied) {
+            log.warn("Lost lease {} (fencing token {}), its writes were discarded", lease.name(), lease.token());
+        }
+        return applied;
+    }
+
+    /**
+     * Runs the task if this instance holds, or can take, the job's lease. The lease isn't released afterwards:
+     * with a {@code ttl} longer than the job's period the same instance keeps running it, and another one takes
+     * over within {@code ttl} once it stops.
+     *
+     * @return whether the task ran here
+     */
+    public boolean runAsLeader(String job, Duration ttl, Consumer<Lease> task) {
+        Optional<Lease> lease = tryAcquire(job, ttl);
+        if (lease.isEmpty()) {
+            log.debug("Skipping {}, another instance holds its lease", job);
+            return false;
+        }
+        task.accept(lease.get());
+        return true;
+    }
+
+    /**
+     * Runs the task for each of the job's {@code partitions} this instance holds or can take, up to its share
+     * among the live instances. Partitions already held come first so they stay put; surplus ones are released
+     * for instances that joined since. A failing partition is logged and doesn't stop the others.
+     * <p>
+     * Partition {@code i} is leased as {@code <job>:<i>}, in the job's hash slot, see {@link ProductKeys#lease}.
+     *
+     * @return the number of partitions that ran here
+     */
+    public int runPartitioned(String job, int partitions, Duration ttl, BiConsumer<SlotPartition, Lease> task) {
+        int share = Math.ceilDiv(partitions, (int) Math.max(1, liveNodes()));
+        int start = ThreadLocalRandom.current().nextInt(partitions);
+        List<Integer> order = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            order.add((start + i) % partitions);
+        }
+        order.sort(Comparator.comparing(index -> !held.containsKey(partitionLease(job, index))));
+
+        int ran = 0;
+        for (int index : order) {
+            String name = partitionLease(job, index);
+            if (ran >= share) {
+                Lease surplus = held.get(name);
+                if (surplus != null) {
+                    log.info("Handing back lease {}, this instance's share of {} is {}", name, job, share);
+                    release(surplus);
+                }
+                continue;
+            }
+            Optional<Lease> lease = tryAcquire(name, ttl);
+            if (lease.isEmpty()) {
+                continue;
+            }
+            ran++;
+            try {
+                task.accept(new SlotPartition(index, partitions), lease.get());
+            } catch (RuntimeException e) {
+                log.error("Partition {} of {} failed", index, job, e);
+            }
+        }
+        return ran;
+    }
+
+    @Scheduled(fixedRateString = "${products.scheduler.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        long now = redisTime();
+        stringRedisTemplate.opsForZSet().add(ProductKeys.schedulerNodes(), instanceId, now);
+        stringRedisTemplate.opsForZSet().removeRangeByScore(ProductKeys.schedulerNodes(),
+                Double.NEGATIVE_INFINITY, now - nodeTimeout.toMillis());
+    }
+
+    /**
+     * Instances with a recent heartbeat, this one included.
+     */
+    public long liveNodes() {
+        Long count = stringRedisTemplate.opsForZSet().count(ProductKeys.schedulerNodes(),
+                redisTime() - nodeTimeout.toMillis(), Double.POSITIVE_INFINITY);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Releases every lease held, so other instances take the jobs over right away instead of after the TTL.
+     */
+    @PreDestroy
+    public void close() {
+        held.values().forEach(this::release);
+        stringRedisTemplate.opsForZSet().remove(ProductKeys.schedulerNodes(), instanceId);
+    }
+
+    private static String partitionLease(String job, int index) {
+        return job + ":" + index;
+    }
+
+    /**
+     * Heartbeats are scored with the Redis clock, so clock skew between instances doesn't matter.
+     */
+    private long redisTime() {
+        Long time = stringRedisTemplate.execute((RedisCallback<Long>) connection -> connection.serverCommands().time());
+        return time == null ? System.currentTimeMillis() : time;
+    }
+}
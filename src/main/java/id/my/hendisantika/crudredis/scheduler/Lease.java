@@ -0,0 +1,46 @@
+package id.my.hendisantika.crudredis.scheduler;
+
+import id.my.hendisantika.crudredis.index.ProductKeys;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 11.05
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * A job lease held by this instance.
+ *
+ * @param name           the lease name, a job or one partition of it
+ * @param token          fencing token: the same across renewals, greater than every token of earlier holders
+ * @param holder         the instance holding it
+ * @param expiresAtNanos {@link System#nanoTime()} at which the lease runs out unless renewed, measured from
+ *                       before the acquiring call so it never outlives the key in Redis
+ */
+public record Lease(String name, long token, String holder, long expiresAtNanos) {
+
+    public boolean isExpired() {
+        return System.nanoTime() - expiresAtNanos >= 0;
+    }
+
+    /**
+     * The lease's key in Redis.
+     */
+    public String key() {
+        return ProductKeys.lease(name);
+    }
+
+    /**
+     * The lease value in Redis while this holder has it. Fenced writes only go through while {@link #key()}
+     * still holds it.
+     */
+    public String value() {
+        return token + ":" + holder;
+    }
+}
@@ -1,13 +1,15 @@
 package id.my.hendisantika.crudredis.scheduler;
 
 import id.my.hendisantika.crudredis.model.Product;
-import id.my.hendisantika.crudredis.repository.ProductRepository;
+import id.my.hendisantika.crudredis.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Random;
@@ -26,14 +28,22 @@ import java.util.UUID;
  */
 
 /**
- * Scheduler to automatically create products in Redis every 5 seconds
+ * Scheduler to automatically create products in Redis every 5 seconds.
+ * Disable with {@code products.generator.enabled=false}.
  */
 @Slf4j
 @Component
+@ConditionalOnProperty(prefix = "products.generator", name = "enabled", havingValue = "true", matchIfMissing = true)
 @RequiredArgsConstructor
 public class ProductScheduler {
 
-    private final ProductRepository productRepository;
+    /**
+     * Longer than the 30 minute period, so the instance that ran last keeps the job while it renews the lease.
+     */
+    private static final Duration LEASE_TTL = Duration.ofMinutes(45);
+
+    private final ProductService productService;
+    private final JobLeases jobLeases;
     private final Random random = new Random();
 
     private static final String[] PRODUCT_NAMES = {
@@ -49,10 +59,14 @@ public class ProductScheduler {
 
     /**
      * Scheduled task that runs every 30 minutes (1800000 milliseconds)
-     * Creates a new random product and saves it to Redis
+     * Creates a new random product and saves it to Redis, on one instance only when several are running
      */
     @Scheduled(fixedRate = 1800000)
     public void createProductAutomatically() {
+        jobLeases.runAsLeader("product-generator", LEASE_TTL, this::createProduct);
+    }
+
+    private void createProduct(Lease lease) {
         try {
             // Generate random product data
             String productName = PRODUCT_NAMES[random.nextInt(PRODUCT_NAMES.length)];
@@ -67,8 +81,14 @@ public class ProductScheduler {
             product.setQuantity(1 + random.nextInt(100));
             product.setCategory(category);
 
-            // Save to Redis
-            Product savedProduct = productRepository.save(product);
+            // Not fenced like the other jobs: a paused instance can at worst add one extra product
+            if (!jobLeases.isHeld(lease)) {
+                log.warn("Lost lease {} (fencing token {}), not creating a product", lease.name(), lease.token());
+                return;
+            }
+
+            // Save through the service so the product indexes are maintained
+            Product savedProduct = productService.saveProduct(product);
 
             // Log success
             log.info("✓ Auto-created product: {} (ID: {}, Price: ${}, Qty: {}, Category: {})",
@@ -79,42 +99,11 @@ public class ProductScheduler {
                     savedProduct.getCategory());
 
             // Log total count
-            long totalProducts = productRepository.count();
+            long totalProducts = productService.countProducts();
             log.info("Total products in Redis: {}", totalProducts);
 
         } catch (Exception e) {
             log.error("Failed to auto-create product: {}", e.getMessage(), e);
         }
     }
-
-    /**
-     * Optional: Clean up old products every minute to prevent Redis from growing indefinitely
-     * Uncomment if you want to limit the number of products
-     */
-    /*
-    @Scheduled(fixedRate = 60000) // Every 60 seconds
-    public void cleanupOldProducts() {
-        try {
-            long totalProducts = productRepository.count();
-
-            // Keep only the latest 100 products
-            if (totalProducts > 100) {
-                List<Product> allProducts = new ArrayList<>();
-                productRepository.findAll().forEach(allProducts::add);
-
-                // Sort by name (which includes timestamp) and delete oldest
-                allProducts.sort(Comparator.comparing(Product::getName));
-
-                int toDelete = (int) (totalProducts - 100);
-                for (int i = 0; i < toDelete; i++) {
-                    productRepository.delete(allProducts.get(i));
-                }
-
-                log.info("Cleaned up {} old products. Current count: {}", toDelete, productRepository.count());
-            }
-        } catch (Exception e) {
-            log.error("Failed to cleanup old products: {}", e.getMessage(), e);
-        }
-    }
-    */
 }
@@ -0,0 +1,54 @@
+package id.my.hendisantika.crudredis.scheduler;
+
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 11.10
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * One of {@code count} contiguous ranges of the 16384 Redis Cluster hash slots, the unit in which
+ * {@link JobLeases#runPartitioned} splits a job between instances. A job handles the keys whose slot falls in
+ * its partition; keys sharing a {@code {hash tag}} always land in the same partition.
+ *
+ * @param index the partition, from 0 to {@code count - 1}
+ * @param count the number of partitions, at most 16384
+ */
+public record SlotPartition(int index, int count) {
+
+    public static final int SLOTS = 16384;
+
+    public SlotPartition {
+        if (count < 1 || count > SLOTS) {
+            throw new IllegalArgumentException("Partition count must be between 1 and " + SLOTS + ": " + count);
+        }
+        if (index < 0 || index >= count) {
+            throw new IllegalArgumentException("Partition index must be between 0 and " + (count - 1) + ": " + index);
+        }
+    }
+
+    public int firstSlot() {
+        return index * SLOTS / count;
+    }
+
+    public int lastSlot() {
+        return (index + 1) * SLOTS / count - 1;
+    }
+
+    public boolean contains(String key) {
+        int slot = slot(key);
+        return slot >= firstSlot() && slot <= lastSlot();
+    }
+
+    public static int slot(String key) {
+        return ClusterSlotHashUtil.calculateSlot(key);
+    }
+}
@@ -0,0 +1,199 @@
+package id.my.hendisantika.crudredis.service;
+
+import id.my.hendisantika.crudredis.metrics.ProductMetrics;
+import id.my.hendisantika.crudredis.model.CatalogAggregates;
+import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.model.ProductPage;
+import id.my.hendisantika.crudredis.model.StockChange;
+import id.my.hendisantika.crudredis.model.StreamedProductPage;
+import id.my.hendisantika.crudredis.scheduler.Lease;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 21.30
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Times every {@link ProductService} call as {@code products.service{operation=...}} around {@link ProductServiceImpl}.
+ * Primary, so controllers, the scheduler and the initializer all go through it.
+ */
+@Service
+@Primary
+@RequiredArgsConstructor
+public class MeteredProductService implements ProductService {
+
+    private final ProductServiceImpl delegate;
+    private final ProductMetrics productMetrics;
+
+    @Override
+    public List<Product> getAllProducts() {
+        return productMetrics.time("getAllProducts", delegate::getAllProducts);
+    }
+
+    @Override
+    public ProductPage getProductPage(String after, String before, int size) {
+        return productMetrics.time("getProductPage", () -> delegate.getProductPage(after, before, size));
+    }
+
+    @Override
+    public StreamedProductPage streamProductPage(String after, String before, int size) {
+        // Times the index reads; the products are fetched while the page renders
+        return productMetrics.time("streamProductPage", () -> delegate.streamProductPage(after, before, size));
+    }
+
+    @Override
+    public long countProducts() {
+        return productMetrics.time("countProducts", delegate::countProducts);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return productMetrics.time("isEmpty", delegate::isEmpty);
+    }
+
+    @Override
+    public Optional<Product> getProductById(String id) {
+        return productMetrics.time("getProductById", () -> delegate.getProductById(id));
+    }
+
+    @Override
+    public OptionalLong getProductVersion(String id) {
+        return productMetrics.time("getProductVersion", () -> delegate.getProductVersion(id));
+    }
+
+    @Override
+    public OptionalLong getCatalogVersion() {
+        return productMetrics.time("getCatalogVersion", delegate::getCatalogVersion);
+    }
+
+    @Override
+    public OptionalLong getFilteredCatalogVersion() {
+        return productMetrics.time("getFilteredCatalogVersion", delegate::getFilteredCatalogVersion);
+    }
+
+    @Override
+    public Product saveProduct(Product product) {
+        return productMetrics.time("saveProduct", () -> delegate.saveProduct(product));
+    }
+
+    @Override
+    public List<Product> saveProducts(List<Product> products) {
+        return productMetrics.time("saveProducts", () -> delegate.saveProducts(products));
+    }
+
+    @Override
+    public Stream<Product> streamProducts() {
+        // Lazy, so only opening the stream could be timed here; the consumer's scan is what costs
+        return delegate.streamProducts();
+    }
+
+    @Override
+    public void deleteProduct(String id) {
+        productMetrics.time("deleteProduct", () -> delegate.deleteProduct(id));
+    }
+
+    @Override
+    public int deleteProducts(Collection<String> ids) {
+        return productMetrics.time("deleteProducts", () -> delegate.deleteProducts(ids));
+    }
+
+    @Override
+    public OptionalInt deleteProducts(Collection<String> ids, Lease lease) {
+        return productMetrics.time("deleteProducts", () -> delegate.deleteProducts(ids, lease));
+    }
+
+    @Override
+    public StockChange reserveStock(String id, int units) {
+        return productMetrics.time("reserveStock", () -> delegate.reserveStock(id, units));
+    }
+
+    @Override
+    public StockChange releaseStock(String id, int units) {
+        return productMetrics.time("releaseStock", () -> delegate.releaseStock(id, units));
+    }
+
+    @Override
+    public Optional<StockChange> decrementStockIfAvailable(String id, int units) {
+        return productMetrics.time("decrementStockIfAvailable", () -> delegate.decrementStockIfAvailable(id, units));
+    }
+
+    @Override
+    public List<StockChange> adjustStock(Map<String, Integer> deltas) {
+        return productMetrics.time("adjustStock", () -> delegate.adjustStock(deltas));
+    }
+
+    @Override
+    public List<Product> searchProductsByName(String name) {
+        return productMetrics.time("searchProductsByName", () -> delegate.searchProductsByName(name));
+    }
+
+    @Override
+    public List<Product> getProductsByCategory(String category) {
+        return productMetrics.time("getProductsByCategory", () -> delegate.getProductsByCategory(category));
+    }
+
+    @Override
+    public List<Product> getProductsByPrice(BigDecimal min, BigDecimal max, boolean descending, int offset, int limit) {
+        return productMetrics.time("getProductsByPrice", () -> delegate.getProductsByPrice(min, max, descending, offset, limit));
+    }
+
+    @Override
+    public long countProductsByPrice(BigDecimal min, BigDecimal max) {
+        return productMetrics.time("countProductsByPrice", () -> delegate.countProductsByPrice(min, max));
+    }
+
+    @Override
+    public List<Product> getProductsByQuantity(Integer min, Integer max, boolean descending, int offset, int limit) {
+        return productMetrics.time("getProductsByQuantity",
+                () -> delegate.getProductsByQuantity(min, max, descending, offset, limit));
+    }
+
+    @Override
+    public long countProductsByQuantity(Integer min, Integer max) {
+        return productMetrics.time("countProductsByQuantity", () -> delegate.countProductsByQuantity(min, max));
+    }
+
+    @Override
+    public List<Product> getProductsByPriceAndQuantity(BigDecimal minPrice, BigDecimal maxPrice, Integer minQuantity,
+                                                       Integer maxQuantity, boolean byQuantity, boolean descending,
+                                                       int offset, int limit) {
+        return productMetrics.time("getProductsByPriceAndQuantity", () -> delegate.getProductsByPriceAndQuantity(
+                minPrice, maxPrice, minQuantity, maxQuantity, byQuantity, descending, offset, limit));
+    }
+
+    @Override
+    public long countProductsByPriceAndQuantity(BigDecimal minPrice, BigDecimal maxPrice, Integer minQuantity,
+                                                Integer maxQuantity) {
+        return productMetrics.time("countProductsByPriceAndQuantity",
+                () -> delegate.countProductsByPriceAndQuantity(minPrice, maxPrice, minQuantity, maxQuantity));
+    }
+
+    @Override
+    public CatalogAggregates getCatalogAggregates() {
+        return productMetrics.time("getCatalogAggregates", delegate::getCatalogAggregates);
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return productMetrics.time("existsById", () -> delegate.existsById(id));
+    }
+}
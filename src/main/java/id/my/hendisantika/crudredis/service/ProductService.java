@@ -1,9 +1,21 @@
 package id.my.hendisantika.crudredis.service;
 
+import id.my.hendisantika.crudredis.model.CatalogAggregates;
 import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.model.ProductPage;
+import id.my.hendisantika.crudredis.model.StockChange;
+import id.my.hendisantika.crudredis.model.StreamedProductPage;
+import id.my.hendisantika.crudredis.scheduler.JobLeases;
+import id.my.hendisantika.crudredis.scheduler.Lease;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
 
 /**
  * Created by IntelliJ IDEA.
@@ -24,15 +36,148 @@ public interface ProductService {
 
     List<Product> getAllProducts();
 
+    /**
+     * Newest-first page of products. Pass the {@code after} cursor of the previous page's
+     * {@link ProductPage#nextCursor()} to move on, or {@code before} to go back; neither means the first page.
+     */
+    ProductPage getProductPage(String after, String before, int size);
+
+    /**
+     * {@link #getProductPage} for streamed rendering: products are fetched one pipelined batch at a time as the
+     * stream is consumed, so a large page never sits in memory as a whole.
+     */
+    StreamedProductPage streamProductPage(String after, String before, int size);
+
+    /**
+     * Number of products, O(1) on the Redis side.
+     */
+    long countProducts();
+
+    /**
+     * Whether no product is stored, without reading any of them.
+     */
+    boolean isEmpty();
+
     Optional<Product> getProductById(String id);
 
+    /**
+     * Version of the stored product, bumped by every write to it; empty when it was never stored, a
+     * write-behind save of it is still pending, or {@link #getProductById} reads it from a replica, so there is
+     * nothing stable to validate against.
+     */
+    OptionalLong getProductVersion(String id);
+
+    /**
+     * Version of the catalog, bumped by every product write; listings can't change without it changing.
+     * Empty when listings are read from replicas: the counter is read from the primary, and a lagging replica
+     * would have the old listing tagged with the new version.
+     */
+    OptionalLong getCatalogVersion();
+
+    /**
+     * {@link #getCatalogVersion} for the search and filtered listings, empty when the catalog projection is enabled:
+     * it serves them and follows the writes through the change feed with a lag, so its page can be older than the
+     * version.
+     */
+    OptionalLong getFilteredCatalogVersion();
+
     Product saveProduct(Product product);
 
+    /**
+     * Saves the products like {@link #saveProduct} but in one pipelined round trip, for imports and seeding.
+     */
+    List<Product> saveProducts(List<Product> products);
+
+    /**
+     * Every product, fetched lazily in batches. The stream holds a Redis cursor and must be closed.
+     */
+    Stream<Product> streamProducts();
+
     void deleteProduct(String id);
 
+    /**
+     * Deletes the products like {@link #deleteProduct} but in one pipelined round trip; ids of products that are
+     * already gone are still removed from the indexes.
+     *
+     * @return how many of the products existed
+     */
+    int deleteProducts(Collection<String> ids);
+
+    /**
+     * Deletes the products like {@link #deleteProducts(Collection)} on behalf of a scheduled job: the writes are
+     * fenced by the job's lease, see {@link JobLeases#runFenced}, so nothing is deleted once it has moved on.
+     *
+     * @return how many of the products existed, or empty if the lease was lost and nothing was deleted
+     */
+    OptionalInt deleteProducts(Collection<String> ids, Lease lease);
+
+    /**
+     * Atomically takes {@code units} off the quantity and holds them for {@link #releaseStock}.
+     *
+     * @throws id.my.hendisantika.crudredis.exception.StockException if the product is missing or has too few units
+     */
+    StockChange reserveStock(String id, int units);
+
+    /**
+     * Atomically returns previously reserved units to the quantity.
+     *
+     * @throws id.my.hendisantika.crudredis.exception.StockException if the product is missing or fewer units are reserved
+     */
+    StockChange releaseStock(String id, int units);
+
+    /**
+     * Atomically takes {@code units} off the quantity if that many are available.
+     *
+     * @return empty when there isn't enough stock, nothing is changed then
+     * @throws id.my.hendisantika.crudredis.exception.StockException if the product is missing
+     */
+    Optional<StockChange> decrementStockIfAvailable(String id, int units);
+
+    /**
+     * Atomically applies a quantity delta per product id: every product is adjusted or, if one is missing or
+     * would go below zero, none is.
+     *
+     * @throws id.my.hendisantika.crudredis.exception.StockException naming the product that refused the adjustment
+     */
+    List<StockChange> adjustStock(Map<String, Integer> deltas);
+
     List<Product> searchProductsByName(String name);
 
     List<Product> getProductsByCategory(String category);
 
+    /**
+     * Products priced between {@code min} and {@code max} (inclusive, {@code null} for an open bound), sorted by
+     * price, skipping {@code offset} and returning at most {@code limit}.
+     */
+    List<Product> getProductsByPrice(BigDecimal min, BigDecimal max, boolean descending, int offset, int limit);
+
+    long countProductsByPrice(BigDecimal min, BigDecimal max);
+
+    /**
+     * Products with a quantity between {@code min} and {@code max} (inclusive, {@code null} for an open bound),
+     * sorted by quantity, skipping {@code offset} and returning at most {@code limit}.
+     */
+    List<Product> getProductsByQuantity(Integer min, Integer max, boolean descending, int offset, int limit);
+
+    long countProductsByQuantity(Integer min, Integer max);
+
+    /**
+     * Products within both the price and the quantity bounds (inclusive, {@code null} for an open bound), sorted
+     * by quantity when {@code byQuantity} is set and by price otherwise, skipping {@code offset} and returning at
+     * most {@code limit}.
+     */
+    List<Product> getProductsByPriceAndQuantity(BigDecimal minPrice, BigDecimal maxPrice, Integer minQuantity,
+                                                Integer maxQuantity, boolean byQuantity, boolean descending,
+                                                int offset, int limit);
+
+    long countProductsByPriceAndQuantity(BigDecimal minPrice, BigDecimal maxPrice, Integer minQuantity,
+                                         Integer maxQuantity);
+
+    /**
+     * Product count, units and inventory value per category, kept up to date by every write; costs one field
+     * read per category whatever the catalog size.
+     */
+    CatalogAggregates getCatalogAggregates();
+
     boolean existsById(String id);
 }
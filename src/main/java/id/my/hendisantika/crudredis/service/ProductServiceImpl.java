@@ -1,17 +1,54 @@
 package id.my.hendisantika.crudredis.service;
 
+import id.my.hendisantika.crudredis.cache.ProductNearCache;
+import id.my.hendisantika.crudredis.cache.ProductWriteBuffer;
+import id.my.hendisantika.crudredis.config.RedisTopology;
+import id.my.hendisantika.crudredis.config.ReplicaRedisTemplate;
+import id.my.hendisantika.crudredis.exception.StockException;
+import id.my.hendisantika.crudredis.feed.ProductChangeFeed;
+import id.my.hendisantika.crudredis.index.CatalogAggregateIndex;
+import id.my.hendisantika.crudredis.index.CreationTimeIndex;
+import id.my.hendisantika.crudredis.index.NameSearchIndex;
+import id.my.hendisantika.crudredis.index.PriceIndex;
+import id.my.hendisantika.crudredis.index.ProductIndex;
+import id.my.hendisantika.crudredis.index.ProductVersionIndex;
+import id.my.hendisantika.crudredis.index.QuantityIndex;
+import id.my.hendisantika.crudredis.index.ScoreIndex;
+import id.my.hendisantika.crudredis.metrics.ProductMetrics;
+import id.my.hendisantika.crudredis.model.CatalogAggregates;
 import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.model.ProductPage;
+import id.my.hendisantika.crudredis.model.StockChange;
+import id.my.hendisantika.crudredis.model.StreamedProductPage;
+import id.my.hendisantika.crudredis.projection.CatalogProjection;
+import id.my.hendisantika.crudredis.projection.ProductColumns;
+import id.my.hendisantika.crudredis.repository.ProductKeyspace;
 import id.my.hendisantika.crudredis.repository.ProductRepository;
+import id.my.hendisantika.crudredis.scheduler.JobLeases;
+import id.my.hendisantika.crudredis.scheduler.Lease;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.SequencedMap;
 import java.util.UUID;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.stream.Stream;
 
 /**
  * Created by IntelliJ IDEA.
@@ -34,36 +71,306 @@ import java.util.stream.StreamSupport;
 public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
+    private final ProductKeyspace productKeyspace;
+    private final NameSearchIndex nameSearchIndex;
+    private final CreationTimeIndex creationTimeIndex;
+    private final PriceIndex priceIndex;
+    private final QuantityIndex quantityIndex;
+    private final ProductVersionIndex productVersionIndex;
+    private final CatalogAggregateIndex catalogAggregateIndex;
+    private final ProductNearCache productNearCache;
+    private final ProductMetrics productMetrics;
+    private final List<ProductIndex> productIndexes;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ProductWriteBuffer productWriteBuffer;
+    private final ProductChangeFeed productChangeFeed;
+    private final CatalogProjection catalogProjection;
+    private final RedisTopology redisTopology;
+    private final ReplicaRedisTemplate replicaRedisTemplate;
+    private final JobLeases jobLeases;
+
+    @PostConstruct
+    void startWriteBehind() {
+        productWriteBuffer.start(this::writeProducts);
+    }
+
+    /**
+     * Runs before the Redis connection factory this bean depends on is closed.
+     */
+    @PreDestroy
+    void flushWriteBehind() {
+        productWriteBuffer.close();
+    }
 
     @Override
     public List<Product> getAllProducts() {
         log.info("Fetching all products");
-        List<Product> products = new ArrayList<>();
-        productRepository.findAll().forEach(products::add);
-        return products;
+        try (Stream<Product> stream = productRepository.replicaReads().streamAll()) {
+            List<Product> products = stream.collect(Collectors.toList());
+            productMetrics.recordScan("getAllProducts", products.size());
+            return products;
+        }
+    }
+
+    @Override
+    public ProductPage getProductPage(String after, String before, int size) {
+        log.info("Fetching product page after: {}, before: {}, size: {}", after, before, size);
+        long total = creationTimeIndex.count();
+        PageRange range = pageRange(after, before, size);
+        long start = range.start();
+
+        List<String> ids = creationTimeIndex.range(start, range.end() - 1);
+        List<Product> products = findAllInOrder(ids);
+        if (products.isEmpty()) {
+            return new ProductPage(products, null, null, total);
+        }
+        String previousCursor = start > 0 ? CreationTimeIndex.cursor(products.getFirst()) : null;
+        String nextCursor = start + ids.size() < total ? CreationTimeIndex.cursor(products.getLast()) : null;
+        return new ProductPage(products, previousCursor, nextCursor, total);
+    }
+
+    @Override
+    public StreamedProductPage streamProductPage(String after, String before, int size) {
+        log.info("Streaming product page after: {}, before: {}, size: {}", after, before, size);
+        long total = creationTimeIndex.count();
+        PageRange range = pageRange(after, before, size);
+        long start = range.start();
+
+        SequencedMap<String, String> cursors = creationTimeIndex.rangeWithCursors(start, range.end() - 1);
+        Stream<Product> products = productRepository.replicaReads().streamAllById(List.copyOf(cursors.keySet()));
+        if (cursors.isEmpty()) {
+            return new StreamedProductPage(products, null, null, total);
+        }
+        String previousCursor = start > 0 ? cursors.firstEntry().getValue() : null;
+        String nextCursor = start + cursors.size() < total ? cursors.lastEntry().getValue() : null;
+        return new StreamedProductPage(products, previousCursor, nextCursor, total);
+    }
+
+    @Override
+    public long countProducts() {
+        return productKeyspace.count();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return productKeyspace.isEmpty();
     }
 
     @Override
     public Optional<Product> getProductById(String id) {
         log.info("Fetching product with id: {}", id);
-        return productRepository.findById(id);
+        Product buffered = productWriteBuffer.get(id);
+        if (buffered != null) {
+            return Optional.of(buffered);
+        }
+        if (!productNearCache.isEnabled()) {
+            return productRepository.replicaReads().findAllByIdPipelined(List.of(id)).stream().findFirst();
+        }
+        // Misses read the primary: a replica lagging behind an invalidation would put the old product back
+        return productNearCache.get(id, productRepository::findById);
+    }
+
+    @Override
+    public OptionalLong getProductVersion(String id) {
+        // The buffered product is newer than anything the stored version describes
+        if (productWriteBuffer.get(id) != null) {
+            return OptionalLong.empty();
+        }
+        // The counter is read from the primary, so is the product it tags: only the near-cache reads it from there
+        if (replicaRedisTemplate.readsReplicas() && !productNearCache.isEnabled()) {
+            return OptionalLong.empty();
+        }
+        return productVersionIndex.version(id);
+    }
+
+    @Override
+    public OptionalLong getCatalogVersion() {
+        if (replicaRedisTemplate.readsReplicas()) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(productVersionIndex.catalogVersion());
+    }
+
+    @Override
+    public OptionalLong getFilteredCatalogVersion() {
+        // Checked against the setting rather than a loaded projection, which could appear between tag and page
+        if (catalogProjection.isEnabled()) {
+            return OptionalLong.empty();
+        }
+        return getCatalogVersion();
     }
 
     @Override
     public Product saveProduct(Product product) {
+        if (productWriteBuffer.isEnabled()) {
+            return bufferProduct(product);
+        }
+        Product previous = null;
         if (product.getId() == null || product.getId().isEmpty()) {
             product.setId(UUID.randomUUID().toString());
             log.info("Creating new product with id: {}", product.getId());
         } else {
             log.info("Updating product with id: {}", product.getId());
+            previous = productRepository.findById(product.getId()).orElse(null);
         }
-        return productRepository.save(product);
+        keepCreatedAt(product, previous, System.currentTimeMillis());
+        Product saved = productRepository.save(product);
+        productNearCache.invalidate(saved.getId());
+        Product before = previous;
+        productIndexes.forEach(index -> index.onSave(before, saved));
+        productChangeFeed.saved(saved);
+        return saved;
+    }
+
+    @Override
+    public List<Product> saveProducts(List<Product> products) {
+        log.info("Saving {} products in bulk", products.size());
+        // An older buffered save of one of these would otherwise be written over them later
+        productWriteBuffer.flushIfPending(products.stream().map(Product::getId).filter(Objects::nonNull).toList());
+        return writeProducts(products);
+    }
+
+    /**
+     * Writes the products in one pipeline; also the flush of the write-behind buffer.
+     */
+    private List<Product> writeProducts(List<Product> products) {
+        List<String> existingIds = products.stream()
+                .map(Product::getId)
+                .filter(id -> id != null && !id.isEmpty())
+                .toList();
+        Map<String, Product> previous = new HashMap<>();
+        productRepository.findAllByIdPipelined(existingIds).forEach(product -> previous.put(product.getId(), product));
+
+        long now = System.currentTimeMillis();
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                for (Product product : products) {
+                    if (product.getId() == null || product.getId().isEmpty()) {
+                        product.setId(UUID.randomUUID().toString());
+                    }
+                    Product before = previous.get(product.getId());
+                    keepCreatedAt(product, before, now);
+                    productRepository.writePipelined(product, before);
+                    productIndexes.forEach(index -> index.onSave(before, product));
+                    productChangeFeed.saved(product);
+                    // A later row with the same id must diff against this one, not the stored state
+                    previous.put(product.getId(), product);
+                }
+                return null;
+            }
+        });
+        products.forEach(product -> productNearCache.invalidate(product.getId()));
+        return products;
+    }
+
+    @Override
+    public Stream<Product> streamProducts() {
+        return productRepository.replicaReads().streamAll();
     }
 
     @Override
     public void deleteProduct(String id) {
         log.info("Deleting product with id: {}", id);
-        productRepository.deleteById(id);
+        productWriteBuffer.remove(id);
+        productRepository.findById(id).ifPresent(previous -> {
+            productRepository.deleteById(id);
+            productNearCache.invalidate(id);
+            productIndexes.forEach(index -> index.onDelete(previous));
+            productChangeFeed.deleted(id);
+        });
+    }
+
+    @Override
+    public int deleteProducts(Collection<String> ids) {
+        log.info("Deleting {} products in bulk", ids.size());
+        Map<String, Product> stored = storedForDelete(ids);
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                queueDeletes(ids, stored);
+                return null;
+            }
+        });
+        ids.forEach(productNearCache::invalidate);
+        return stored.size();
+    }
+
+    @Override
+    public OptionalInt deleteProducts(Collection<String> ids, Lease lease) {
+        log.info("Deleting {} products in bulk under lease {}", ids.size(), lease.name());
+        Map<String, Product> stored = storedForDelete(ids);
+        if (!jobLeases.runFenced(lease, () -> queueDeletes(ids, stored))) {
+            return OptionalInt.empty();
+        }
+        ids.forEach(productNearCache::invalidate);
+        return OptionalInt.of(stored.size());
+    }
+
+    private Map<String, Product> storedForDelete(Collection<String> ids) {
+        ids.forEach(productWriteBuffer::remove);
+        Map<String, Product> stored = new HashMap<>();
+        productRepository.findAllByIdPipelined(ids).forEach(product -> stored.put(product.getId(), product));
+        return stored;
+    }
+
+    /**
+     * Issues the deletes without reading replies, for a pipeline or a fenced MULTI.
+     */
+    private void queueDeletes(Collection<String> ids, Map<String, Product> stored) {
+        for (String id : ids) {
+            Product previous = stored.get(id);
+            if (previous != null) {
+                productRepository.deletePipelined(previous);
+                productChangeFeed.deleted(id);
+            } else {
+                // Index entries left behind by a product that is gone: drop what can be found by id
+                previous = new Product();
+                previous.setId(id);
+            }
+            Product deleted = previous;
+            productIndexes.forEach(index -> index.onDelete(deleted));
+        }
+    }
+
+    @Override
+    public StockChange reserveStock(String id, int units) {
+        requirePositive(units);
+        log.info("Reserving {} units of product {}", units, id);
+        productWriteBuffer.flushIfPending(List.of(id));
+        return applyStockChanges(productRepository.adjustStock(Map.of(id, -units), Map.of(id, units))).getFirst();
+    }
+
+    @Override
+    public StockChange releaseStock(String id, int units) {
+        requirePositive(units);
+        log.info("Releasing {} units of product {}", units, id);
+        productWriteBuffer.flushIfPending(List.of(id));
+        return applyStockChanges(productRepository.adjustStock(Map.of(id, units), Map.of(id, -units))).getFirst();
+    }
+
+    @Override
+    public Optional<StockChange> decrementStockIfAvailable(String id, int units) {
+        requirePositive(units);
+        productWriteBuffer.flushIfPending(List.of(id));
+        try {
+            return Optional.of(applyStockChanges(productRepository.adjustStock(Map.of(id, -units), Map.of())).getFirst());
+        } catch (StockException e) {
+            if (e.getReason() == StockException.Reason.INSUFFICIENT_STOCK) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public List<StockChange> adjustStock(Map<String, Integer> deltas) {
+        log.info("Adjusting stock of {} products", deltas.size());
+        if (deltas.isEmpty()) {
+            return List.of();
+        }
+        productWriteBuffer.flushIfPending(deltas.keySet());
+        return applyStockChanges(productRepository.adjustStock(new LinkedHashMap<>(deltas), Map.of()));
     }
 
     @Override
@@ -73,9 +380,17 @@ public class ProductServiceImpl implements ProductService {
             return getAllProducts();
         }
 
-        // Redis doesn't support CONTAINING queries, so we filter in-memory
+        // Redis doesn't support CONTAINING queries: the n-gram index narrows the candidates,
+        // then only those are fetched and confirmed in-memory
         String searchTerm = name.toLowerCase().trim();
-        return StreamSupport.stream(productRepository.findAll().spliterator(), false)
+        Optional<ProductColumns> projection = catalogProjection.current();
+        if (projection.isPresent()) {
+            return findAllInOrder(projection.get().idsNamed(searchTerm));
+        }
+        List<Product> candidates = productRepository.replicaReads()
+                .findAllByIdPipelined(nameSearchIndex.candidates(searchTerm));
+        productMetrics.recordScan("searchProductsByName", candidates.size());
+        return candidates.stream()
                 .filter(product -> product.getName().toLowerCase().contains(searchTerm))
                 .collect(Collectors.toList());
     }
@@ -87,14 +402,189 @@ public class ProductServiceImpl implements ProductService {
             return getAllProducts();
         }
 
-        // Filter products by category in-memory
-        return StreamSupport.stream(productRepository.findAll().spliterator(), false)
-                .filter(product -> category.equalsIgnoreCase(product.getCategory()))
-                .collect(Collectors.toList());
+        Optional<ProductColumns> projection = catalogProjection.current();
+        if (projection.isPresent()) {
+            return findAllInOrder(projection.get().idsInCategory(category));
+        }
+        // Served from the categoryKey index, only matching hashes are fetched
+        List<Product> products = productRepository.replicaReads()
+                .findByCategoryKeyPipelined(Product.normalizeCategory(category));
+        productMetrics.recordScan("getProductsByCategory", products.size());
+        return products;
+    }
+
+    @Override
+    public List<Product> getProductsByPrice(BigDecimal min, BigDecimal max, boolean descending, int offset, int limit) {
+        log.info("Fetching products by price between {} and {}", min, max);
+        Optional<ProductColumns> projection = catalogProjection.current();
+        if (projection.isPresent()) {
+            return findAllInOrder(projection.get().idsByPrice(min, max, descending, offset, limit));
+        }
+        return findAllInOrder(priceIndex.range(priceScore(min, Double.NEGATIVE_INFINITY),
+                priceScore(max, Double.POSITIVE_INFINITY), descending, offset, limit));
+    }
+
+    @Override
+    public long countProductsByPrice(BigDecimal min, BigDecimal max) {
+        Optional<ProductColumns> projection = catalogProjection.current();
+        if (projection.isPresent()) {
+            return projection.get().countByPrice(min, max);
+        }
+        return priceIndex.count(priceScore(min, Double.NEGATIVE_INFINITY), priceScore(max, Double.POSITIVE_INFINITY));
+    }
+
+    @Override
+    public List<Product> getProductsByQuantity(Integer min, Integer max, boolean descending, int offset, int limit) {
+        log.info("Fetching products by quantity between {} and {}", min, max);
+        Optional<ProductColumns> projection = catalogProjection.current();
+        if (projection.isPresent()) {
+            return findAllInOrder(projection.get().idsByQuantity(min, max, descending, offset, limit));
+        }
+        return findAllInOrder(quantityIndex.range(quantityScore(min, Double.NEGATIVE_INFINITY),
+                quantityScore(max, Double.POSITIVE_INFINITY), descending, offset, limit));
+    }
+
+    @Override
+    public long countProductsByQuantity(Integer min, Integer max) {
+        Optional<ProductColumns> projection = catalogProjection.current();
+        if (projection.isPresent()) {
+            return projection.get().countByQuantity(min, max);
+        }
+        return quantityIndex.count(quantityScore(min, Double.NEGATIVE_INFINITY),
+                quantityScore(max, Double.POSITIVE_INFINITY));
+    }
+
+    @Override
+    public List<Product> getProductsByPriceAndQuantity(BigDecimal minPrice, BigDecimal maxPrice, Integer minQuantity,
+                                                       Integer maxQuantity, boolean byQuantity, boolean descending,
+                                                       int offset, int limit) {
+        log.info("Fetching products priced between {} and {} with a quantity between {} and {}", minPrice, maxPrice,
+                minQuantity, maxQuantity);
+        Optional<ProductColumns> projection = catalogProjection.current();
+        if (projection.isPresent()) {
+            return findAllInOrder(projection.get().idsByPriceAndQuantity(minPrice, maxPrice, minQuantity,
+                    maxQuantity, byQuantity, descending, offset, limit));
+        }
+        return findAllInOrder(intersect(minPrice, maxPrice, minQuantity, maxQuantity, byQuantity, descending,
+                offset, limit).ids());
+    }
+
+    @Override
+    public long countProductsByPriceAndQuantity(BigDecimal minPrice, BigDecimal maxPrice, Integer minQuantity,
+                                                Integer maxQuantity) {
+        Optional<ProductColumns> projection = catalogProjection.current();
+        if (projection.isPresent()) {
+            return projection.get().countByPriceAndQuantity(minPrice, maxPrice, minQuantity, maxQuantity);
+        }
+        return intersect(minPrice, maxPrice, minQuantity, maxQuantity, false, false, 0, 0).total();
+    }
+
+    /**
+     * Intersects the price and quantity index ranges in Redis, ordered by the index named by {@code byQuantity}.
+     * On a cluster the two indexes are in different slots, so the intersection is looked up from here instead.
+     */
+    private ScoreIndex.Intersection intersect(BigDecimal minPrice, BigDecimal maxPrice, Integer minQuantity,
+                                              Integer maxQuantity, boolean byQuantity, boolean descending,
+                                              int offset, int limit) {
+        double priceMin = priceScore(minPrice, Double.NEGATIVE_INFINITY);
+        double priceMax = priceScore(maxPrice, Double.POSITIVE_INFINITY);
+        double quantityMin = quantityScore(minQuantity, Double.NEGATIVE_INFINITY);
+        double quantityMax = quantityScore(maxQuantity, Double.POSITIVE_INFINITY);
+        if (redisTopology.isCluster()) {
+            return byQuantity
+                    ? quantityIndex.intersectByLookup(quantityMin, quantityMax, priceIndex, priceMin, priceMax,
+                    descending, offset, limit)
+                    : priceIndex.intersectByLookup(priceMin, priceMax, quantityIndex, quantityMin, quantityMax,
+                    descending, offset, limit);
+        }
+        return byQuantity
+                ? quantityIndex.intersect(quantityMin, quantityMax, priceIndex, priceMin, priceMax, descending,
+                offset, limit)
+                : priceIndex.intersect(priceMin, priceMax, quantityIndex, quantityMin, quantityMax, descending,
+                offset, limit);
+    }
+
+    @Override
+    public CatalogAggregates getCatalogAggregates() {
+        return catalogAggregateIndex.current();
     }
 
     @Override
     public boolean existsById(String id) {
-        return productRepository.existsById(id);
+        return getProductById(id).isPresent();
+    }
+
+    /**
+     * Write-behind save: no round trip on the caller's thread. The previous state is looked up when the
+     * buffer is flushed, which also fills in createdAt for updates that didn't carry it.
+     */
+    private Product bufferProduct(Product product) {
+        if (product.getId() == null || product.getId().isEmpty()) {
+            product.setId(UUID.randomUUID().toString());
+            product.setCreatedAt(product.getCreatedAt() != null ? product.getCreatedAt() : System.currentTimeMillis());
+        }
+        productWriteBuffer.add(product);
+        return product;
+    }
+
+    /**
+     * The script already changed the hash; bring the near-cache and the derived indexes up to date.
+     */
+    private List<StockChange> applyStockChanges(List<StockChange> changes) {
+        for (StockChange change : changes) {
+            Product current = change.product();
+            Product previous = current.withQuantity(change.previousQuantity());
+            productNearCache.invalidate(current.getId());
+            productIndexes.forEach(index -> index.onSave(previous, current));
+            productChangeFeed.saved(current);
+        }
+        return changes;
+    }
+
+    private static void requirePositive(int units) {
+        if (units <= 0) {
+            throw new IllegalArgumentException("units must be positive: " + units);
+        }
+    }
+
+    /**
+     * The edit form and imports don't always carry createdAt, keep the original creation time.
+     */
+    private static void keepCreatedAt(Product product, Product previous, long now) {
+        if (product.getCreatedAt() == null) {
+            product.setCreatedAt(previous != null && previous.getCreatedAt() != null ? previous.getCreatedAt() : now);
+        }
+    }
+
+    private static double priceScore(BigDecimal price, double unbounded) {
+        return price == null ? unbounded : PriceIndex.score(price);
+    }
+
+    private static double quantityScore(Integer quantity, double unbounded) {
+        return quantity == null ? unbounded : quantity;
+    }
+
+    /**
+     * Positions {@code start} (inclusive) to {@code end} (exclusive) of the page in the creation-time index.
+     */
+    private PageRange pageRange(String after, String before, int size) {
+        if (before != null && !before.isEmpty()) {
+            long end = creationTimeIndex.positionBefore(before);
+            return new PageRange(Math.max(0, end - size), end);
+        }
+        long start = (after != null && !after.isEmpty()) ? creationTimeIndex.positionAfter(after) : 0;
+        return new PageRange(start, start + size);
+    }
+
+    private record PageRange(long start, long end) {
+    }
+
+    /**
+     * Fetches the given ids for a listing and returns them in the same order, skipping ids deleted meanwhile.
+     */
+    private List<Product> findAllInOrder(List<String> ids) {
+        Map<String, Product> byId = new HashMap<>();
+        productRepository.replicaReads().findAllByIdPipelined(ids).forEach(product -> byId.put(product.getId(), product));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
     }
 }
@@ -0,0 +1,51 @@
+package id.my.hendisantika.crudredis.service;
+
+import id.my.hendisantika.crudredis.model.Product;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 16.30
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Non-blocking counterpart of {@link ProductService}, available with the {@code reactive} profile.
+ */
+public interface ReactiveProductService {
+
+    /**
+     * The newest products, up to {@code limit}.
+     */
+    Flux<Product> getLatestProducts(int limit);
+
+    Mono<Product> getProductById(String id);
+
+    /**
+     * See {@link ProductService#getProductVersion}; empty when the product was never stored, has a write-behind
+     * save pending or is read from a replica.
+     */
+    Mono<Long> getProductVersion(String id);
+
+    /**
+     * See {@link ProductService#getCatalogVersion}; empty when listings are read from replicas.
+     */
+    Mono<Long> getCatalogVersion();
+
+    Mono<Product> saveProduct(Product product);
+
+    Mono<Void> deleteProduct(String id);
+
+    Flux<Product> searchProductsByName(String name);
+
+    Flux<Product> getProductsByCategory(String category);
+
+    Mono<Long> countProducts();
+}
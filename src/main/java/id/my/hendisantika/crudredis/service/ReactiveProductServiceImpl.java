@@ -0,0 +1,197 @@
+package id.my.hendisantika.crudredis.service;
+
+import id.my.hendisantika.crudredis.cache.ProductWriteBuffer;
+import id.my.hendisantika.crudredis.config.ReplicaRedisTemplate;
+import id.my.hendisantika.crudredis.index.NGrams;
+import id.my.hendisantika.crudredis.index.ProductKeys;
+import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.repository.ProductHashMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 16.45
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * Reads hashes and indexes directly over Lettuce; concurrent HGETALLs are pipelined on its single connection.
+ * Writes are delegated to {@link ProductService} on a bounded elastic scheduler so every index stays maintained
+ * by one code path.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveProductServiceImpl implements ReactiveProductService {
+
+    /**
+     * HGETALLs kept in flight per request.
+     */
+    private static final int FETCH_CONCURRENCY = 64;
+
+    private static final int SCAN_BATCH = 500;
+
+    /**
+     * String keys, raw hash fields and values for {@link ProductHashMapper#read}: the encoded product isn't text.
+     */
+    private static final RedisSerializationContext<String, byte[]> RAW_HASH = RedisSerializationContext
+            .<String, byte[]>newSerializationContext(RedisSerializer.byteArray())
+            .key(RedisSerializer.string())
+            .build();
+
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+    private final ProductHashMapper productHashMapper;
+    private final ProductService productService;
+    private final ReplicaRedisTemplate replicaRedisTemplate;
+    private final ProductWriteBuffer productWriteBuffer;
+
+    @Override
+    public Flux<Product> getLatestProducts(int limit) {
+        log.info("Fetching latest {} products", limit);
+        return fetchAll(reactiveStringRedisTemplate.opsForZSet()
+                .reverseRange(ProductKeys.created(), Range.closed(0L, (long) limit - 1)));
+    }
+
+    /**
+     * A product with a write-behind save pending is served from the buffer, as {@link ProductService} does.
+     */
+    @Override
+    public Mono<Product> getProductById(String id) {
+        return Mono.defer(() -> {
+            Product buffered = productWriteBuffer.get(id);
+            if (buffered != null) {
+                return Mono.just(buffered);
+            }
+            return reactiveStringRedisTemplate.<String, byte[], byte[]>opsForHash(RAW_HASH)
+                    .entries(ProductKeys.hash(id))
+                    .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                    .mapNotNull(hash -> productHashMapper.read(id, hash));
+        });
+    }
+
+    /**
+     * Empty while a write-behind save of the product is pending, and when reads go to replicas: the counter and
+     * the hash could come from different nodes, one lagging.
+     */
+    @Override
+    public Mono<Long> getProductVersion(String id) {
+        return Mono.defer(() -> {
+            if (replicaRedisTemplate.readsReplicas() || productWriteBuffer.get(id) != null) {
+                return Mono.empty();
+            }
+            return reactiveStringRedisTemplate.opsForValue().get(ProductKeys.productVersion(id)).map(Long::parseLong);
+        });
+    }
+
+    /**
+     * Empty when reads go to replicas, see {@link #getProductVersion}.
+     */
+    @Override
+    public Mono<Long> getCatalogVersion() {
+        if (replicaRedisTemplate.readsReplicas()) {
+            return Mono.empty();
+        }
+        return reactiveStringRedisTemplate.opsForValue().get(ProductKeys.catalogVersion())
+                .map(Long::parseLong)
+                .defaultIfEmpty(0L);
+    }
+
+    @Override
+    public Mono<Product> saveProduct(Product product) {
+        return Mono.fromCallable(() -> productService.saveProduct(product))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<Void> deleteProduct(String id) {
+        return Mono.<Void>fromRunnable(() -> productService.deleteProduct(id))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Flux<Product> searchProductsByName(String name) {
+        log.info("Searching products by name: {}", name);
+        if (name == null || name.trim().isEmpty()) {
+            return Flux.empty();
+        }
+
+        String searchTerm = name.toLowerCase().trim();
+        List<String> keys = NGrams.query(searchTerm).stream().map(ProductKeys::ngram).toList();
+        return fetchAll(candidates(keys))
+                .filter(product -> product.getName().toLowerCase().contains(searchTerm));
+    }
+
+    @Override
+    public Flux<Product> getProductsByCategory(String category) {
+        log.info("Fetching products by category: {}", category);
+        String categoryKey = Product.normalizeCategory(category);
+        if (categoryKey == null) {
+            return Flux.empty();
+        }
+        return fetchAll(reactiveStringRedisTemplate.opsForSet().scan(ProductKeys.category(categoryKey)).distinct());
+    }
+
+    @Override
+    public Mono<Long> countProducts() {
+        return reactiveStringRedisTemplate.opsForZSet().size(ProductKeys.created());
+    }
+
+    /**
+     * Same intersection as {@code NameSearchIndex.candidates}: SSCAN of the smallest gram set, batches checked
+     * against the other sets with SMISMEMBER.
+     */
+    private Flux<String> candidates(List<String> keys) {
+        if (keys.size() == 1) {
+            return reactiveStringRedisTemplate.opsForSet().scan(keys.getFirst()).distinct();
+        }
+        return Flux.fromIterable(keys)
+                .flatMapSequential(key -> reactiveStringRedisTemplate.opsForSet().size(key))
+                .collectList()
+                .flatMapMany(sizes -> {
+                    int smallest = sizes.indexOf(sizes.stream().min(Long::compare).orElseThrow());
+                    List<String> others = new ArrayList<>(keys);
+                    String smallestKey = others.remove(smallest);
+                    return reactiveStringRedisTemplate.opsForSet().scan(smallestKey)
+                            .distinct()
+                            .buffer(SCAN_BATCH)
+                            .concatMap(batch -> membersOfAll(batch, others))
+                            .flatMapIterable(ids -> ids);
+                });
+    }
+
+    private Mono<List<String>> membersOfAll(List<String> ids, List<String> keys) {
+        Mono<List<String>> members = Mono.just(ids);
+        for (String key : keys) {
+            members = members.flatMap(remaining -> remaining.isEmpty()
+                    ? Mono.just(remaining)
+                    : reactiveStringRedisTemplate.opsForSet().isMember(key, remaining.toArray())
+                    .map(flags -> remaining.stream().filter(id -> Boolean.TRUE.equals(flags.get(id))).toList()));
+        }
+        return members;
+    }
+
+    private Flux<Product> fetchAll(Flux<String> ids) {
+        return ids.flatMapSequential(this::getProductById, FETCH_CONCURRENCY);
+    }
+}
@@ -0,0 +1,29 @@
+-- Applies per-category deltas to the catalog aggregates in one step, so readers never see a category's count
+-- without its units and value. A category whose totals all reach zero is dropped.
+-- KEYS: the product count, units and value hashes ({products:aggregates}:count, :units, :value), one field per
+-- category key ('' for products without a category)
+-- KEYS[4], optional: a job lease in the same slot (products:lease:{aggregates}:<partition>) the deltas are fenced
+-- by; ARGV[1] is then the value it must hold, "<fencing token>:<holder>"
+-- ARGV: per category, its key followed by the count, units and value (in cents) deltas
+-- Returns 0, or -1 when the lease no longer holds ARGV[1] and nothing was applied.
+
+local first = 1
+if KEYS[4] then
+    if redis.call('GET', KEYS[4]) ~= ARGV[1] then
+        return -1
+    end
+    first = 2
+end
+
+for i = first, #ARGV, 4 do
+    local category = ARGV[i]
+    local count = redis.call('HINCRBY', KEYS[1], category, ARGV[i + 1])
+    local units = redis.call('HINCRBY', KEYS[2], category, ARGV[i + 2])
+    local value = redis.call('HINCRBY', KEYS[3], category, ARGV[i + 3])
+    if count == 0 and units == 0 and value == 0 then
+        for k = 1, 3 do
+            redis.call('HDEL', KEYS[k], category)
+        end
+    end
+end
+return 0
@@ -0,0 +1,19 @@
+-- Stores what one partition of the aggregate reconciliation recounted, replacing its previous recount, unless
+-- the partition's lease has moved on to another holder.
+-- KEYS[1]: the partition's recount ({products:aggregates}:recount:<partitions>:<partition>), a hash of
+-- "<count>:<units>:<value in cents>" by category key
+-- KEYS[2]: the pass counters of all partitions ({products:aggregates}:recounts)
+-- KEYS[3]: the partition's lease (products:lease:{aggregates}:<partition>), in the same slot
+-- ARGV[1]: the value the lease must hold, "<fencing token>:<holder>"; ARGV[2]: the partition's field in KEYS[2]
+-- ARGV[3..]: per category, its key followed by its totals as stored in KEYS[1]
+-- Returns the partition's pass number, or -1 when the lease no longer holds ARGV[1] and nothing was stored.
+
+if redis.call('GET', KEYS[3]) ~= ARGV[1] then
+    return -1
+end
+
+redis.call('DEL', KEYS[1])
+for i = 3, #ARGV, 2 do
+    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+end
+return redis.call('HINCRBY', KEYS[2], ARGV[2], 1)
@@ -0,0 +1,13 @@
+-- Replaces the catalog aggregates with recounted totals in one step, so readers see either the old totals or
+-- the recount, never a mix of both.
+-- KEYS: the product count, units and value hashes, as in aggregate-apply.lua
+-- ARGV: per category, its key followed by the count, units and value (in cents)
+
+redis.call('DEL', KEYS[1], KEYS[2], KEYS[3])
+for i = 1, #ARGV, 4 do
+    local category = ARGV[i]
+    redis.call('HSET', KEYS[1], category, ARGV[i + 1])
+    redis.call('HSET', KEYS[2], category, ARGV[i + 2])
+    redis.call('HSET', KEYS[3], category, ARGV[i + 3])
+end
+return 0
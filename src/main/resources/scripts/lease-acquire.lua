@@ -0,0 +1,20 @@
+-- Acquires or renews a job lease.
+-- KEYS[1]: the lease (products:lease:{<name>}), holding "<fencing token>:<holder>"
+-- KEYS[2]: the lease's fencing counter (products:lease:{<name>}:fence)
+-- ARGV[1]: the holder asking, ARGV[2]: the lease time to live in milliseconds
+-- Returns the fencing token when ARGV[1] holds the lease afterwards, or -1 when another holder has it.
+-- Renewing keeps the token; every new acquisition gets a token greater than all tokens handed out before.
+
+local current = redis.call('GET', KEYS[1])
+if current then
+    local separator = string.find(current, ':', 1, true)
+    if string.sub(current, separator + 1) ~= ARGV[1] then
+        return -1
+    end
+    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+    return tonumber(string.sub(current, 1, separator - 1))
+end
+
+local token = redis.call('INCR', KEYS[2])
+redis.call('SET', KEYS[1], token .. ':' .. ARGV[1], 'PX', ARGV[2])
+return token
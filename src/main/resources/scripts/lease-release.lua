@@ -0,0 +1,9 @@
+-- Releases a job lease, unless it expired meanwhile and was acquired by another holder.
+-- KEYS[1]: the lease (products:lease:{<name>})
+-- ARGV[1]: the value the releasing holder wrote, "<fencing token>:<holder>"
+-- Returns 1 when the lease was released, 0 otherwise.
+
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
@@ -0,0 +1,25 @@
+-- Intersects the score ranges of two sorted set indexes and returns one page of the result, ordered by the score
+-- in the first index, then by id.
+-- KEYS: the index to order by, the index to filter by, two scratch keys that are deleted before returning
+-- ARGV: min and max score in the first index, min and max score in the second, 'desc' or 'asc', offset, limit
+-- Returns {total, id1, id2, ...}
+
+redis.call('ZRANGESTORE', KEYS[3], KEYS[1], ARGV[1], ARGV[2], 'BYSCORE')
+redis.call('ZRANGESTORE', KEYS[4], KEYS[2], ARGV[3], ARGV[4], 'BYSCORE')
+-- The second index only filters: weight 0 keeps the first index's scores
+local total = redis.call('ZINTERSTORE', KEYS[3], 2, KEYS[3], KEYS[4], 'WEIGHTS', 1, 0)
+
+local ids = {}
+local offset = tonumber(ARGV[6])
+local limit = tonumber(ARGV[7])
+if limit > 0 and offset < total then
+    if ARGV[5] == 'desc' then
+        ids = redis.call('ZREVRANGE', KEYS[3], offset, offset + limit - 1)
+    else
+        ids = redis.call('ZRANGE', KEYS[3], offset, offset + limit - 1)
+    end
+end
+redis.call('DEL', KEYS[3], KEYS[4])
+
+table.insert(ids, 1, total)
+return ids
@@ -0,0 +1,42 @@
+-- Atomically adjusts the stock of one or more products, all or nothing.
+-- KEYS: per product, its hash (Product:<id>) followed by its reserved-units counter ({Product:<id>}:reserved)
+-- ARGV: per product, the quantity delta followed by the reserved delta
+-- Returns {0, previousQuantity1, hash1, previousQuantity2, hash2, ...} with each hash as HGETALL pairs,
+-- or {status, index} for the first (1-based) product that failed: 1 missing, 2 not enough stock,
+-- 3 not enough reserved units.
+
+local count = #KEYS / 2
+local quantities = {}
+local reserved = {}
+
+for i = 1, count do
+    local hash = KEYS[2 * i - 1]
+    if redis.call('EXISTS', hash) == 0 then
+        return {1, i}
+    end
+    quantities[i] = tonumber(redis.call('HGET', hash, 'quantity')) or 0
+    reserved[i] = tonumber(redis.call('GET', KEYS[2 * i])) or 0
+    if quantities[i] + tonumber(ARGV[2 * i - 1]) < 0 then
+        return {2, i}
+    end
+    if reserved[i] + tonumber(ARGV[2 * i]) < 0 then
+        return {3, i}
+    end
+end
+
+local result = {0}
+for i = 1, count do
+    local hash = KEYS[2 * i - 1]
+    local reservedDelta = tonumber(ARGV[2 * i])
+    redis.call('HSET', hash, 'quantity', quantities[i] + tonumber(ARGV[2 * i - 1]))
+    if reservedDelta ~= 0 then
+        if reserved[i] + reservedDelta == 0 then
+            redis.call('DEL', KEYS[2 * i])
+        else
+            redis.call('SET', KEYS[2 * i], reserved[i] + reservedDelta)
+        end
+    end
+    table.insert(result, quantities[i])
+    table.insert(result, redis.call('HGETALL', hash))
+end
+return result
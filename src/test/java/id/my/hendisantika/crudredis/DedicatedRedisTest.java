@@ -0,0 +1,42 @@
+package id.my.hendisantika.crudredis;
+
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 20/10/26
+ * Time: 09.30
+ * To change this template use File | Settings | File Templates.
+ */
+
+/**
+ * For tests that flush scripts or rebuild every index: they run only against the Redis named by
+ * {@code TEST_REDIS_HOST} (and {@code TEST_REDIS_PORT}, 6379 by default), which they are free to wipe, and are
+ * skipped otherwise so they never touch the instance {@code spring.data.redis.*} points to.
+ * <pre>
+ * docker run -d -p 6390:6379 redis:7-alpine &amp;&amp; TEST_REDIS_HOST=localhost TEST_REDIS_PORT=6390 ./mvnw test
+ * </pre>
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@EnabledIfEnvironmentVariable(named = "TEST_REDIS_HOST", matches = ".+")
+@SpringBootTest(properties = {
+        "spring.data.redis.host=${TEST_REDIS_HOST}",
+        "spring.data.redis.port=${TEST_REDIS_PORT:6379}",
+        "spring.data.redis.ssl.enabled=false",
+        "spring.docker.compose.enabled=false",
+        "products.sample-data.enabled=false",
+        "products.generator.enabled=false"})
+public @interface DedicatedRedisTest {
+}
@@ -0,0 +1,72 @@
+package id.my.hendisantika.crudredis.bulk;
+
+import id.my.hendisantika.crudredis.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 22.45
+ * To change this template use File | Settings | File Templates.
+ */
+class ProductCsvTest {
+
+    @Test
+    void roundTripsQuotedFields() throws IOException {
+        Product product = new Product();
+        product.setId("p-1");
+        product.setName("LEGO \"Falcon\", UCS");
+        product.setDescription("7,541 pieces\nwith minifigures");
+        product.setCategory("Toys");
+        product.setPrice(new BigDecimal("849.99"));
+        product.setQuantity(8);
+        product.setCreatedAt(1760000000000L);
+
+        StringWriter csv = new StringWriter();
+        ProductCsv.writeRecord(csv, ProductCsv.COLUMNS);
+        ProductCsv.writeRecord(csv, ProductCsv.fromProduct(product));
+
+        BufferedReader reader = new BufferedReader(new StringReader(csv.toString()));
+        Map<String, Integer> header = ProductCsv.header(ProductCsv.readRecord(reader));
+        Product read = ProductCsv.toProduct(header, ProductCsv.readRecord(reader));
+
+        assertThat(read).isEqualTo(product);
+        assertThat(ProductCsv.readRecord(reader)).isNull();
+    }
+
+    @Test
+    void mapsColumnsByHeaderName() throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader("Quantity,NAME,extra\r\n3,Mat,ignored\r\n"));
+        Map<String, Integer> header = ProductCsv.header(ProductCsv.readRecord(reader));
+        Product product = ProductCsv.toProduct(header, ProductCsv.readRecord(reader));
+
+        assertThat(product.getName()).isEqualTo("Mat");
+        assertThat(product.getQuantity()).isEqualTo(3);
+        assertThat(product.getPrice()).isNull();
+    }
+
+    @Test
+    void rejectsUnparseableNumbers() {
+        Map<String, Integer> header = ProductCsv.header(List.of("name", "price"));
+
+        assertThatThrownBy(() -> ProductCsv.toProduct(header, List.of("Mat", "cheap")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("price");
+    }
+}
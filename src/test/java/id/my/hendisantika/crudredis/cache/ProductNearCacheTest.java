@@ -0,0 +1,36 @@
+package id.my.hendisantika.crudredis.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 19/10/26
+ * Time: 09.15
+ * To change this template use File | Settings | File Templates.
+ */
+class ProductNearCacheTest {
+
+    @Test
+    void notificationsOffLackEveryFlag() {
+        assertThat(ProductNearCache.missingKeyspaceEvents("")).isEqualTo("Kghx");
+    }
+
+    @Test
+    void keepsFlagsThatAreAlreadyConfigured() {
+        assertThat(ProductNearCache.missingKeyspaceEvents("Ex")).isEqualTo("Kgh");
+        assertThat(ProductNearCache.missingKeyspaceEvents("xhgK")).isEmpty();
+    }
+
+    @Test
+    void allEventClassesStillNeedKeyspaceChannels() {
+        assertThat(ProductNearCache.missingKeyspaceEvents("EA")).isEqualTo("K");
+        assertThat(ProductNearCache.missingKeyspaceEvents("KA")).isEmpty();
+    }
+}
@@ -0,0 +1,132 @@
+package id.my.hendisantika.crudredis.cache;
+
+import id.my.hendisantika.crudredis.model.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 23.59
+ * To change this template use File | Settings | File Templates.
+ */
+class ProductWriteBufferTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Product> written = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void coalescesSavesAndServesThemUntilFlushed() {
+        ProductWriteBuffer buffer = buffer(written::addAll);
+
+        buffer.add(product("a", 1));
+        buffer.add(product("a", 2));
+        buffer.add(product("b", 1));
+
+        assertThat(buffer.get("a").getQuantity()).isEqualTo(2);
+        assertThat(written).isEmpty();
+
+        buffer.close();
+
+        assertThat(written).extracting(Product::getId, Product::getQuantity)
+                .containsExactlyInAnyOrder(tuple("a", 2), tuple("b", 1));
+        assertThat(buffer.get("a")).isNull();
+        assertThat(meterRegistry.get("products.write-behind.coalesced").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("products.write-behind.pending").gauge().value()).isZero();
+    }
+
+    @Test
+    void keepsProductsBufferedWhenTheWriteFails() {
+        ProductWriteBuffer buffer = buffer(products -> {
+            throw new IllegalStateException("Redis is down");
+        });
+        buffer.add(product("a", 1));
+
+        assertThatThrownBy(buffer::flush).isInstanceOf(IllegalStateException.class);
+
+        assertThat(buffer.get("a").getQuantity()).isEqualTo(1);
+        assertThat(meterRegistry.get("products.write-behind.pending").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void removedProductsAreNotWritten() {
+        ProductWriteBuffer buffer = buffer(written::addAll);
+        buffer.add(product("a", 1));
+
+        buffer.remove("a");
+        buffer.close();
+
+        assertThat(written).isEmpty();
+    }
+
+    @Test
+    void onlyBatchesFromTheFailedOneOnAreWrittenAgain() {
+        // One product per batch; "a", "b" and "c" fall into stripes 1, 2 and 3, so they are drained in that order
+        ProductWriteBuffer buffer = buffer(1, batch -> {
+            if (batch.getFirst().getId().equals("b")) {
+                throw new IllegalStateException("Redis is down");
+            }
+            written.addAll(batch);
+        });
+        buffer.add(product("a", 1));
+        buffer.add(product("b", 1));
+        buffer.add(product("c", 1));
+
+        assertThatThrownBy(buffer::close).isInstanceOf(IllegalStateException.class);
+
+        assertThat(written).extracting(Product::getId).containsExactly("a");
+        assertThat(buffer.get("a")).isNull();
+        assertThat(buffer.get("b")).isNotNull();
+        assertThat(buffer.get("c")).isNotNull();
+    }
+
+    @Test
+    void productRemovedDuringAFailedFlushIsNotPutBack() {
+        ProductWriteBuffer[] buffer = new ProductWriteBuffer[1];
+        buffer[0] = buffer(products -> {
+            // A delete of the product arrives while its save is being written, which then fails
+            buffer[0].remove("a");
+            throw new IllegalStateException("Redis is down");
+        });
+        buffer[0].add(product("a", 1));
+
+        assertThatThrownBy(buffer[0]::flush).isInstanceOf(IllegalStateException.class);
+
+        assertThat(buffer[0].get("a")).isNull();
+        assertThat(meterRegistry.get("products.write-behind.pending").gauge().value()).isZero();
+    }
+
+    private ProductWriteBuffer buffer(Consumer<List<Product>> writer) {
+        return buffer(100, writer);
+    }
+
+    private ProductWriteBuffer buffer(int batchSize, Consumer<List<Product>> writer) {
+        ProductWriteBuffer buffer = new ProductWriteBuffer(true, 4, batchSize, 1000, Duration.ofHours(1),
+                meterRegistry);
+        buffer.start(writer);
+        return buffer;
+    }
+
+    private static Product product(String id, int quantity) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setQuantity(quantity);
+        return product;
+    }
+}
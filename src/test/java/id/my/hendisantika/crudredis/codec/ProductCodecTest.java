@@ -0,0 +1,67 @@
+package id.my.hendisantika.crudredis.codec;
+
+import id.my.hendisantika.crudredis.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 19.45
+ * To change this template use File | Settings | File Templates.
+ */
+class ProductCodecTest {
+
+    @Test
+    void roundTripsEveryField() {
+        Product product = product("Apple MacBook Pro 16\"", "Électronique", new BigDecimal("2999.99"), 15);
+        product.setCreatedAt(1_760_000_000_000L);
+
+        Product decoded = ProductCodec.decode(ProductCodec.encode(product));
+
+        assertThat(decoded).isEqualTo(product);
+        assertThat(decoded.getCategoryKey()).isEqualTo("électronique");
+    }
+
+    @Test
+    void roundTripsNullsAndExtremePrices() {
+        Product empty = new Product();
+        assertThat(ProductCodec.decode(ProductCodec.encode(empty))).isEqualTo(empty);
+
+        for (String price : new String[]{"0.01", "-12.5", "1E+3", "123456789012345678901234567890.123456789"}) {
+            Product product = product("Name", null, new BigDecimal(price), -1);
+            Product decoded = ProductCodec.decode(ProductCodec.encode(product));
+            assertThat(decoded.getPrice()).isEqualTo(product.getPrice());
+            assertThat(decoded.getQuantity()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void costsOnlyTheFieldValuesPlusAFewBytes() {
+        Product product = product("Yoga Mat Premium", "Sports", new BigDecimal("39.99"), 89);
+        int values = product.getId().length() + product.getName().length() + product.getDescription().length()
+                + product.getCategory().getBytes(StandardCharsets.UTF_8).length;
+
+        assertThat(ProductCodec.encode(product)).hasSizeLessThanOrEqualTo(values + 12);
+    }
+
+    private static Product product(String name, String category, BigDecimal price, Integer quantity) {
+        Product product = new Product();
+        product.setId("550e8400-e29b-41d4-a716-446655440000");
+        product.setName(name);
+        product.setDescription("Description of " + name);
+        product.setCategory(category);
+        product.setPrice(price);
+        product.setQuantity(quantity);
+        return product;
+    }
+}
@@ -0,0 +1,52 @@
+package id.my.hendisantika.crudredis.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 17.50
+ * To change this template use File | Settings | File Templates.
+ */
+class FlushingIteratorTest {
+
+    @Test
+    void flushesBeforeTheFirstRowAndEveryIntervalRows() {
+        List<String> events = new ArrayList<>();
+        MockHttpServletResponse response = new MockHttpServletResponse() {
+            @Override
+            public void flushBuffer() {
+                super.flushBuffer();
+                events.add("flush");
+            }
+        };
+        Iterator<String> rows = List.of("a", "b", "c", "d", "e").iterator();
+
+        new FlushingIterator<>(rows, response, 2).forEachRemaining(events::add);
+
+        assertThat(events).containsExactly("flush", "a", "b", "flush", "c", "d", "flush", "e");
+        assertThat(response.isCommitted()).isTrue();
+    }
+
+    @Test
+    void flushesOnceForAnEmptyPage() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FlushingIterator<String> rows = new FlushingIterator<>(List.<String>of().iterator(), response, 200);
+
+        assertThat(rows.hasNext()).isFalse();
+        assertThat(rows.hasNext()).isFalse();
+        assertThat(response.isCommitted()).isTrue();
+    }
+}
@@ -0,0 +1,43 @@
+package id.my.hendisantika.crudredis.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 13.30
+ * To change this template use File | Settings | File Templates.
+ */
+class ProductEtagsTest {
+
+    @Test
+    void matchesTheCurrentVersionOnly() {
+        String etag = ProductEtags.product(7);
+
+        assertThat(ProductEtags.matches("\"product-7\"", etag)).isTrue();
+        assertThat(ProductEtags.matches("\"product-6\"", etag)).isFalse();
+        assertThat(ProductEtags.matches("\"catalog-7\"", etag)).isFalse();
+    }
+
+    @Test
+    void acceptsListsWeakTagsAndTheWildcard() {
+        String etag = ProductEtags.catalog(42);
+
+        assertThat(ProductEtags.matches("\"catalog-41\", \"catalog-42\"", etag)).isTrue();
+        assertThat(ProductEtags.matches("W/\"catalog-42\"", etag)).isTrue();
+        assertThat(ProductEtags.matches("*", etag)).isTrue();
+    }
+
+    @Test
+    void noHeaderNeverMatches() {
+        assertThat(ProductEtags.matches(null, ProductEtags.catalog(0))).isFalse();
+        assertThat(ProductEtags.matches(" ", ProductEtags.catalog(0))).isFalse();
+    }
+}
@@ -0,0 +1,154 @@
+package id.my.hendisantika.crudredis.feed;
+
+import id.my.hendisantika.crudredis.index.ProductKeys;
+import id.my.hendisantika.crudredis.model.ProductChange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 19/10/26
+ * Time: 15.20
+ * To change this template use File | Settings | File Templates.
+ */
+@SpringBootTest(properties = {"products.changes.batch-size=5", "products.changes.subscriber-buffer=3"})
+class ProductChangeFeedSubscriptionTest {
+
+    @Autowired
+    private ProductChangeFeed productChangeFeed;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private final List<ProductChangeFeed.Subscription> subscriptions = new ArrayList<>();
+
+    private final String group = "test-" + UUID.randomUUID();
+
+    @AfterEach
+    void cancelSubscriptions() {
+        subscriptions.forEach(ProductChangeFeed.Subscription::cancel);
+        stringRedisTemplate.opsForStream().destroyGroup(ProductKeys.changes(), group);
+    }
+
+    @Test
+    void groupGetsABacklogLargerThanOneBatch() throws Exception {
+        String from = productChangeFeed.latestId();
+        List<String> ids = append(12);
+
+        Collecting listener = new Collecting();
+        subscriptions.add(productChangeFeed.subscribe(listener, group, "consumer-1", from));
+
+        assertThat(listener.take(12)).containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    void consumerResumesWithWhatItNeverAcknowledged() throws Exception {
+        String from = productChangeFeed.latestId();
+        List<String> ids = append(8);
+
+        CountDownLatch failed = new CountDownLatch(1);
+        Collecting failing = new Collecting() {
+            @Override
+            public void onChange(String streamId, ProductChange change) throws Exception {
+                if (changed.size() == 2) {
+                    throw new IllegalStateException("Client went away");
+                }
+                super.onChange(streamId, change);
+            }
+
+            @Override
+            public void onFailure(Exception cause) {
+                failed.countDown();
+            }
+        };
+        subscriptions.add(productChangeFeed.subscribe(failing, group, "consumer-1", from));
+        assertThat(failed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(failing.take(2)).containsExactlyElementsOf(ids.subList(0, 2));
+
+        Collecting resumed = new Collecting();
+        subscriptions.add(productChangeFeed.subscribe(resumed, group, "consumer-1", null));
+
+        // The rest of the failed batch is pending for the consumer and comes first, then what the group never read
+        assertThat(resumed.take(6)).containsExactlyElementsOf(ids.subList(2, 8));
+    }
+
+    @Test
+    void slowListenerHoldsUpOnlyItself() throws Exception {
+        CountDownLatch released = new CountDownLatch(1);
+        Collecting slow = new Collecting() {
+            @Override
+            public void onChange(String streamId, ProductChange change) throws Exception {
+                released.await();
+                super.onChange(streamId, change);
+            }
+        };
+        Collecting fast = new Collecting();
+        subscriptions.add(productChangeFeed.subscribe(slow, null));
+        subscriptions.add(productChangeFeed.subscribe(fast, null));
+
+        List<String> ids = append(12);
+
+        assertThat(fast.take(12)).containsExactlyElementsOf(ids);
+        released.countDown();
+        // Its queue overflowed meanwhile, what was dropped is read back from the stream
+        assertThat(slow.take(12)).containsExactlyElementsOf(ids);
+    }
+
+    private List<String> append(int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String id = "feed-" + UUID.randomUUID();
+            // Deletes of unknown ids, so nothing following the feed keeps them
+            productChangeFeed.deleted(id);
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    /**
+     * Collects the ids of the changed products.
+     */
+    private static class Collecting implements ProductChangeListener {
+
+        final BlockingQueue<String> changed = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onChange(String streamId, ProductChange change) throws Exception {
+            changed.add(change.id());
+        }
+
+        /**
+         * The next {@code count} ids, or fewer if they don't arrive within five seconds.
+         */
+        List<String> take(int count) throws InterruptedException {
+            List<String> ids = new ArrayList<>();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (ids.size() < count) {
+                String id = changed.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (id == null) {
+                    break;
+                }
+                ids.add(id);
+            }
+            return ids;
+        }
+    }
+}
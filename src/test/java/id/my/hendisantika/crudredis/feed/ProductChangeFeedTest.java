@@ -0,0 +1,50 @@
+package id.my.hendisantika.crudredis.feed;
+
+import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.model.ProductChange;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.stream.RecordId;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 16.15
+ * To change this template use File | Settings | File Templates.
+ */
+class ProductChangeFeedTest {
+
+    @Test
+    void changesSurviveTheStreamFields() {
+        Product product = new Product();
+        product.setId("p-1");
+        product.setName("Laptop");
+        product.setCategory("Electronics");
+        product.setPrice(new BigDecimal("1299.90"));
+        product.setQuantity(15);
+
+        ProductChange upsert = ProductChange.upsert(product);
+        ProductChange delete = ProductChange.delete("p-1");
+
+        assertThat(ProductChange.fromFields(upsert.toFields())).isEqualTo(upsert);
+        assertThat(delete.toFields()).containsOnlyKeys("op", "id");
+        assertThat(ProductChange.fromFields(delete.toFields())).isEqualTo(delete);
+    }
+
+    @Test
+    void streamIdsOrderBySequenceWithinAMillisecond() {
+        assertThat(ProductChangeFeed.compare(RecordId.of("1700000000000-2"), RecordId.of("1700000000000-10")))
+                .isNegative();
+        assertThat(ProductChangeFeed.compare(RecordId.of("1700000000001-0"), RecordId.of("1700000000000-10")))
+                .isPositive();
+        assertThat(ProductChangeFeed.compare(RecordId.of("5-5"), RecordId.of("5-5"))).isZero();
+    }
+}
@@ -0,0 +1,77 @@
+package id.my.hendisantika.crudredis.index;
+
+import id.my.hendisantika.crudredis.DedicatedRedisTest;
+import id.my.hendisantika.crudredis.model.CategoryAggregate;
+import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 19/10/26
+ * Time: 14.10
+ * To change this template use File | Settings | File Templates.
+ */
+@DedicatedRedisTest
+class CatalogAggregateIndexTest {
+
+    @Autowired
+    private CatalogAggregateIndex catalogAggregateIndex;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private final String category = "aggregates-" + UUID.randomUUID();
+
+    private final List<String> ids = List.of(UUID.randomUUID().toString(), UUID.randomUUID().toString());
+
+    @AfterEach
+    void deleteProducts() {
+        productService.deleteProducts(ids);
+    }
+
+    @Test
+    void pipelinedSavesApplyTheirDeltasWithAnEmptyScriptCache() {
+        stringRedisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.scriptingCommands().scriptFlush();
+            return null;
+        });
+
+        List<Product> saved = productService.saveProducts(List.of(
+                product(ids.get(0), "2.50", 4), product(ids.get(1), "10.00", 1)));
+
+        assertThat(saved).hasSize(2);
+        assertThat(productService.getProductById(ids.get(0))).isPresent();
+        assertThat(catalogAggregateIndex.currentOnPrimary().categories())
+                .filteredOn(aggregate -> aggregate.category().equals(category.toLowerCase()))
+                .containsExactly(new CategoryAggregate(category.toLowerCase(), 2, 5, new BigDecimal("20.00")));
+    }
+
+    private Product product(String id, String price, int quantity) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Aggregated product");
+        product.setCategory(category);
+        product.setPrice(new BigDecimal(price));
+        product.setQuantity(quantity);
+        return product;
+    }
+}
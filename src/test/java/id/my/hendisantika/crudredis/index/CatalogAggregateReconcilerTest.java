@@ -0,0 +1,76 @@
+package id.my.hendisantika.crudredis.index;
+
+import id.my.hendisantika.crudredis.model.CatalogAggregates;
+import id.my.hendisantika.crudredis.model.CategoryAggregate;
+import id.my.hendisantika.crudredis.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 14.45
+ * To change this template use File | Settings | File Templates.
+ */
+class CatalogAggregateReconcilerTest {
+
+    @Test
+    void noDriftWhenTheStoredTotalsMatchTheRecount() {
+        CategoryAggregate books = CategoryAggregate.of(product("Books", "12.50", 4))
+                .plus(CategoryAggregate.of(product("books", "3.00", 1)));
+
+        assertThat(books).isEqualTo(new CategoryAggregate("books", 2, 5, new BigDecimal("53.00")));
+        assertThat(CatalogAggregateReconciler.drift(Map.of("books", books), CatalogAggregates.of(List.of(books))))
+                .isEmpty();
+    }
+
+    @Test
+    void driftIsWhatTheStoredTotalsMiss() {
+        CategoryAggregate counted = new CategoryAggregate("audio", 3, 10, new BigDecimal("100.00"));
+        CategoryAggregate stored = new CategoryAggregate("audio", 2, 12, new BigDecimal("90.00"));
+        CategoryAggregate gone = new CategoryAggregate("gaming", 1, 1, new BigDecimal("5.00"));
+
+        Map<String, CategoryAggregate> drift = CatalogAggregateReconciler.drift(Map.of("audio", counted),
+                CatalogAggregates.of(List.of(stored, gone)));
+
+        assertThat(drift).containsOnlyKeys("audio", "gaming");
+        assertThat(drift.get("audio")).isEqualTo(new CategoryAggregate("audio", 1, -2, new BigDecimal("10.00")));
+        assertThat(drift.get("gaming")).isEqualTo(new CategoryAggregate("gaming", -1, -1, new BigDecimal("-5.00")));
+    }
+
+    @Test
+    void driftIsOnlyConfirmedOnceEveryPartitionRecountedAgain() {
+        assertThat(CatalogAggregateReconciler.recountedSince(List.of(3L, 7L), List.of(4L, 8L))).isTrue();
+        assertThat(CatalogAggregateReconciler.recountedSince(List.of(3L, 7L), List.of(4L, 7L))).isFalse();
+        assertThat(CatalogAggregateReconciler.recountedSince(List.of(), List.of(1L, 1L))).isFalse();
+    }
+
+    @Test
+    void totalsSumEveryCategory() {
+        CatalogAggregates aggregates = CatalogAggregates.of(List.of(
+                CategoryAggregate.of(product("Storage", "80.00", 2)),
+                CategoryAggregate.of(product(null, "1.99", 3))));
+
+        assertThat(aggregates.categories()).extracting(CategoryAggregate::category).containsExactly("", "storage");
+        assertThat(aggregates.total()).isEqualTo(new CategoryAggregate(null, 2, 5, new BigDecimal("165.97")));
+    }
+
+    private static Product product(String category, String price, int quantity) {
+        Product product = new Product();
+        product.setName("Product");
+        product.setCategory(category);
+        product.setPrice(new BigDecimal(price));
+        product.setQuantity(quantity);
+        return product;
+    }
+}
@@ -0,0 +1,88 @@
+package id.my.hendisantika.crudredis.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 10.30
+ * To change this template use File | Settings | File Templates.
+ */
+class NGramsTest {
+
+    private static final String ALPHABET = "abcde 12-";
+
+    @Test
+    void indexesEverySubstringUpToTrigrams() {
+        assertThat(NGrams.of("ssd")).containsExactlyInAnyOrder("s", "d", "ss", "sd", "ssd");
+        assertThat(NGrams.query("ss")).containsExactly("ss");
+        assertThat(NGrams.query("ssd 1")).containsExactly("ssd", "sd ", "d 1");
+    }
+
+    /**
+     * Replays the Redis SINTER + confirm flow against in-memory sets and compares it with the
+     * previous {@code findAll()} + {@code contains} filter.
+     */
+    @Test
+    void candidateIntersectionMatchesSubstringSearch() {
+        Random random = new Random(42);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            names.add(randomText(random, 1 + random.nextInt(12)).toUpperCase());
+        }
+
+        Map<String, Set<Integer>> index = new HashMap<>();
+        for (int id = 0; id < names.size(); id++) {
+            for (String gram : NGrams.of(names.get(id).toLowerCase())) {
+                index.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+            }
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            String term = randomText(random, 1 + random.nextInt(6));
+
+            Set<Integer> expected = new HashSet<>();
+            for (int id = 0; id < names.size(); id++) {
+                if (names.get(id).toLowerCase().contains(term)) {
+                    expected.add(id);
+                }
+            }
+
+            Set<Integer> candidates = null;
+            for (String gram : NGrams.query(term)) {
+                Set<Integer> ids = index.getOrDefault(gram, Set.of());
+                if (candidates == null) {
+                    candidates = new HashSet<>(ids);
+                } else {
+                    candidates.retainAll(ids);
+                }
+            }
+            candidates.removeIf(id -> !names.get(id).toLowerCase().contains(term));
+
+            assertThat(candidates).as("search for '%s'", term).isEqualTo(expected);
+        }
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,99 @@
+package id.my.hendisantika.crudredis.index;
+
+import id.my.hendisantika.crudredis.DedicatedRedisTest;
+import id.my.hendisantika.crudredis.model.CategoryAggregate;
+import id.my.hendisantika.crudredis.model.Product;
+import id.my.hendisantika.crudredis.repository.ProductRepository;
+import id.my.hendisantika.crudredis.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 19/10/26
+ * Time: 10.30
+ * To change this template use File | Settings | File Templates.
+ */
+@DedicatedRedisTest
+class ProductIndexMigrationTest {
+
+    @Autowired
+    private ProductIndexMigration productIndexMigration;
+
+    @Autowired
+    private CreationTimeIndex creationTimeIndex;
+
+    @Autowired
+    private CatalogAggregateIndex catalogAggregateIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private final String id = "legacy-" + UUID.randomUUID();
+
+    @AfterEach
+    void deleteProduct() {
+        productService.deleteProduct(id);
+    }
+
+    @Test
+    void legacyProductsAreNeverDueForMaxAgeAndAreDatedByTheRebuild() {
+        // A product as stored before createdAt existed, scored 0 in the creation-time index
+        Product legacy = new Product();
+        legacy.setId(id);
+        legacy.setName("Legacy product");
+        legacy.setCategory("Office");
+        legacy.setPrice(new BigDecimal("4.20"));
+        legacy.setQuantity(3);
+        productRepository.save(legacy);
+        stringRedisTemplate.opsForZSet().add(ProductKeys.created(), id, 0);
+
+        long beforeRebuild = System.currentTimeMillis();
+        assertThat(creationTimeIndex.createdBefore(beforeRebuild, 0, Long.MAX_VALUE)).doesNotContain(id);
+
+        productIndexMigration.rebuild();
+
+        assertThat(productRepository.findById(id).orElseThrow().getCreatedAt()).isGreaterThanOrEqualTo(beforeRebuild);
+        assertThat(creationTimeIndex.createdBefore(beforeRebuild, 0, Long.MAX_VALUE)).doesNotContain(id);
+    }
+
+    @Test
+    void rebuildRecountsTheAggregatesInsteadOfAddingToThem() {
+        String category = "rebuilt-" + UUID.randomUUID();
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Rebuilt product");
+        product.setCategory(category);
+        product.setPrice(new BigDecimal("1.50"));
+        product.setQuantity(2);
+        productService.saveProduct(product);
+        // Drift a rebuild must not keep
+        catalogAggregateIndex.apply(List.of(new CategoryAggregate(category, 5, 5, new BigDecimal("5.00"))));
+
+        productIndexMigration.rebuild();
+        productIndexMigration.rebuild();
+
+        assertThat(catalogAggregateIndex.currentOnPrimary().categories())
+                .filteredOn(aggregate -> aggregate.category().equals(category))
+                .containsExactly(new CategoryAggregate(category, 1, 2, new BigDecimal("3.00")));
+    }
+}
@@ -0,0 +1,80 @@
+package id.my.hendisantika.crudredis.projection;
+
+import id.my.hendisantika.crudredis.model.ProductChange;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 17.15
+ * To change this template use File | Settings | File Templates.
+ */
+class ProductColumnsTest {
+
+    @Test
+    void filtersByCategoryAndName() {
+        ProductColumns columns = catalog();
+
+        assertThat(columns.idsInCategory(" ELECTRONICS ")).containsExactlyInAnyOrder("a", "c");
+        assertThat(columns.idsInCategory("garden")).isEmpty();
+        assertThat(columns.idsNamed("LAP")).containsExactly("a");
+    }
+
+    @Test
+    void pagesInIndexOrderWithTiesById() {
+        ProductColumns columns = catalog();
+
+        assertThat(columns.idsByPrice(null, null, false, 0, 10)).containsExactly("b", "c", "d", "a");
+        assertThat(columns.idsByPrice(null, null, true, 1, 2)).containsExactly("d", "c");
+        assertThat(columns.idsByPrice(new BigDecimal("5.001"), new BigDecimal("20"), false, 0, 10))
+                .containsExactly("c", "d");
+        assertThat(columns.countByPrice(new BigDecimal("5.001"), null)).isEqualTo(3);
+        assertThat(columns.idsByQuantity(null, 3, false, 0, 10)).containsExactly("d", "b");
+    }
+
+    @Test
+    void combinesPriceAndQuantityBoundsBeforePaging() {
+        ProductColumns columns = catalog();
+
+        assertThat(columns.idsByPriceAndQuantity(BigDecimal.ONE, null, null, 5, false, false, 0, 10))
+                .containsExactly("d", "a");
+        assertThat(columns.idsByPriceAndQuantity(BigDecimal.ONE, null, null, 5, true, true, 0, 10))
+                .containsExactly("a", "d");
+        assertThat(columns.idsByPriceAndQuantity(BigDecimal.ONE, null, null, 5, false, false, 1, 10))
+                .containsExactly("a");
+        assertThat(columns.countByPriceAndQuantity(BigDecimal.ONE, null, null, 5)).isEqualTo(2);
+    }
+
+    @Test
+    void followsChangesAndReusesRemovedRows() {
+        ProductColumns columns = catalog();
+
+        columns.apply(ProductChange.delete("a"));
+        columns.apply(new ProductChange(ProductChange.UPSERT, "c", "Desk lamp", "Office", new BigDecimal("9.00"), 7));
+        columns.put("e", "Laptop stand", "Office", new BigDecimal("30.00"), 1);
+
+        assertThat(columns.size()).isEqualTo(4);
+        assertThat(columns.idsInCategory("electronics")).isEmpty();
+        assertThat(columns.idsInCategory("office")).containsExactlyInAnyOrder("b", "c", "d", "e");
+        assertThat(columns.idsNamed("laptop")).containsExactly("e");
+        assertThat(columns.idsByPrice(null, null, true, 0, 1)).containsExactly("e");
+    }
+
+    private static ProductColumns catalog() {
+        ProductColumns columns = new ProductColumns(2);
+        columns.put("a", "Laptop", "Electronics", new BigDecimal("999.99"), 5);
+        columns.put("b", "Pencil", "Office", new BigDecimal("0.50"), 3);
+        columns.put("c", "Mouse", "electronics", new BigDecimal("12.00"), 40);
+        columns.put("d", "Stapler", "Office", new BigDecimal("12.00"), 0);
+        return columns;
+    }
+}
@@ -0,0 +1,97 @@
+package id.my.hendisantika.crudredis.repository;
+
+import id.my.hendisantika.crudredis.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.convert.MappingRedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.core.mapping.RedisMappingContext;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 20/10/26
+ * Time: 10.30
+ * To change this template use File | Settings | File Templates.
+ */
+class ProductHashMapperTest {
+
+    private static final String ID = "550e8400-e29b-41d4-a716-446655440000";
+
+    private final MappingRedisConverter converter = converter();
+
+    @Test
+    void binaryFormatStoresTheEncodedProductAndItsQuantity() {
+        ProductHashMapper mapper = new ProductHashMapper(converter, ProductHashMapper.Format.BINARY);
+        Product product = product();
+
+        Map<byte[], byte[]> hash = mapper.write(product);
+
+        assertThat(fields(hash)).containsExactlyInAnyOrder(ProductHashMapper.ENCODED, ProductHashMapper.QUANTITY);
+        assertThat(mapper.read(ID, hash)).isEqualTo(product);
+    }
+
+    @Test
+    void hashFormatWritesNoTypeHint() {
+        ProductHashMapper mapper = new ProductHashMapper(converter, ProductHashMapper.Format.HASH);
+        Product product = product();
+
+        Map<byte[], byte[]> hash = mapper.write(product);
+
+        assertThat(fields(hash)).doesNotContain("_class", ProductHashMapper.ENCODED).contains("price", "quantity");
+        assertThat(mapper.read(ID, hash)).isEqualTo(product);
+    }
+
+    @Test
+    void binaryFormatReadsHashesOfTheRepositoryMapping() {
+        ProductHashMapper mapper = new ProductHashMapper(converter, ProductHashMapper.Format.BINARY);
+        Product product = product();
+        RedisData legacy = new RedisData();
+        converter.write(product, legacy);
+
+        assertThat(fields(legacy.getBucket().rawMap())).contains("_class");
+        assertThat(mapper.read(ID, legacy.getBucket().rawMap())).isEqualTo(product);
+    }
+
+    @Test
+    void missingHashReadsAsNull() {
+        ProductHashMapper mapper = new ProductHashMapper(converter, ProductHashMapper.Format.BINARY);
+
+        assertThat(mapper.read(ID, Map.of())).isNull();
+    }
+
+    private static Set<String> fields(Map<byte[], byte[]> hash) {
+        return hash.keySet().stream()
+                .map(field -> new String(field, StandardCharsets.UTF_8))
+                .collect(Collectors.toSet());
+    }
+
+    private static Product product() {
+        Product product = new Product();
+        product.setId(ID);
+        product.setName("Apple MacBook Pro 16\"");
+        product.setDescription("M3 Max, 36GB");
+        product.setCategory("Electronics");
+        product.setPrice(new BigDecimal("2999.99"));
+        product.setQuantity(15);
+        product.setCreatedAt(1_760_000_000_000L);
+        return product;
+    }
+
+    private static MappingRedisConverter converter() {
+        MappingRedisConverter converter = new MappingRedisConverter(new RedisMappingContext());
+        converter.afterPropertiesSet();
+        return converter;
+    }
+}
@@ -0,0 +1,57 @@
+package id.my.hendisantika.crudredis.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 11.30
+ * To change this template use File | Settings | File Templates.
+ */
+class SlotPartitionTest {
+
+    @Test
+    void partitionsCoverEverySlotOnce() {
+        int count = 7;
+        int next = 0;
+        for (int index = 0; index < count; index++) {
+            SlotPartition partition = new SlotPartition(index, count);
+            assertThat(partition.firstSlot()).isEqualTo(next);
+            assertThat(partition.lastSlot()).isGreaterThanOrEqualTo(partition.firstSlot());
+            next = partition.lastSlot() + 1;
+        }
+        assertThat(next).isEqualTo(SlotPartition.SLOTS);
+    }
+
+    @Test
+    void everyKeyBelongsToExactlyOnePartition() {
+        for (int i = 0; i < 1000; i++) {
+            String key = "Product:" + i;
+            int owners = 0;
+            for (int index = 0; index < 4; index++) {
+                if (new SlotPartition(index, 4).contains(key)) {
+                    owners++;
+                }
+            }
+            assertThat(owners).as(key).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void keysWithTheSameHashTagShareASlot() {
+        assertThat(SlotPartition.slot("Product:{42}")).isEqualTo(SlotPartition.slot("Product:{42}:reserved"));
+    }
+
+    @Test
+    void rejectsIndexOutsideCount() {
+        assertThatThrownBy(() -> new SlotPartition(4, 4)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,128 @@
+package id.my.hendisantika.crudredis.service;
+
+import id.my.hendisantika.crudredis.exception.StockException;
+import id.my.hendisantika.crudredis.model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-crud-redis
+ * User: hendisantika
+ * Link: s.id/hendisantika
+ * Email: hendisantika@yahoo.co.id
+ * Telegram : @hendisantika34
+ * Date: 17/10/26
+ * Time: 23.30
+ * To change this template use File | Settings | File Templates.
+ */
+@SpringBootTest
+class ProductStockConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 100;
+
+    @Autowired
+    private ProductService productService;
+
+    private final List<String> productIds = new ArrayList<>();
+
+    @AfterEach
+    void deleteProducts() {
+        productIds.forEach(productService::deleteProduct);
+    }
+
+    @Test
+    void concurrentDecrementsNeitherLoseUpdatesNorOversell() throws Exception {
+        String id = createProduct(1000);
+
+        List<Future<Integer>> sold = run(() -> {
+            int units = 0;
+            for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                if (productService.decrementStockIfAvailable(id, 1).isPresent()) {
+                    units++;
+                }
+            }
+            return units;
+        });
+
+        int total = 0;
+        for (Future<Integer> units : sold) {
+            total += units.get();
+        }
+        assertThat(total).isEqualTo(1000);
+        assertThat(productService.getProductById(id)).get().extracting(Product::getQuantity).isEqualTo(0);
+    }
+
+    @Test
+    void concurrentReserveAndReleaseKeepQuantity() throws Exception {
+        String id = createProduct(THREADS);
+
+        List<Future<Integer>> done = run(() -> {
+            for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                productService.reserveStock(id, 1);
+                productService.releaseStock(id, 1);
+            }
+            return ATTEMPTS_PER_THREAD;
+        });
+        for (Future<Integer> future : done) {
+            future.get();
+        }
+
+        assertThat(productService.getProductById(id)).get().extracting(Product::getQuantity).isEqualTo(THREADS);
+        assertThatThrownBy(() -> productService.releaseStock(id, 1))
+                .isInstanceOf(StockException.class)
+                .extracting("reason").isEqualTo(StockException.Reason.INSUFFICIENT_RESERVED);
+    }
+
+    @Test
+    void bulkAdjustIsAllOrNothing() {
+        String first = createProduct(5);
+        String second = createProduct(1);
+
+        assertThatThrownBy(() -> productService.adjustStock(Map.of(first, -2, second, -2)))
+                .isInstanceOf(StockException.class)
+                .extracting("productId").isEqualTo(second);
+        assertThat(productService.getProductById(first)).get().extracting(Product::getQuantity).isEqualTo(5);
+
+        productService.adjustStock(Map.of(first, -2, second, 3));
+        assertThat(productService.getProductById(first)).get().extracting(Product::getQuantity).isEqualTo(3);
+        assertThat(productService.getProductById(second)).get().extracting(Product::getQuantity).isEqualTo(4);
+    }
+
+    private String createProduct(int quantity) {
+        Product product = new Product();
+        product.setName("Stock test product");
+        product.setDescription("Created by ProductStockConcurrencyTest");
+        product.setCategory("Test");
+        product.setPrice(new BigDecimal("1.00"));
+        product.setQuantity(quantity);
+        String id = productService.saveProduct(product).getId();
+        productIds.add(id);
+        return id;
+    }
+
+    private static List<Future<Integer>> run(Callable<Integer> task) throws InterruptedException {
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                tasks.add(task);
+            }
+            return executor.invokeAll(tasks);
+        }
+    }
+}
@@ -26,6 +26,15 @@ fi
 # Set working directory
 cd /home/deployer/spring-boot-crud-redis
 
+# Built with -Pstartup: start from the extracted jar with Spring AOT and the JDK AOT cache
+APP_DIR=/home/deployer/spring-boot-crud-redis/target/application
+if [ -f "$APP_DIR/app.aot" ]; then
+    exec "$JAVA_BIN" ${JAVA_OPTS:--Xmx512m -Xms256m} \
+        -XX:AOTCache="$APP_DIR/app.aot" -Dspring.aot.enabled=true \
+        -Dspring.profiles.active=${SPRING_PROFILES_ACTIVE:-dev} \
+        -jar "$APP_DIR/crud-redis-0.0.1.jar"
+fi
+
 # Start the application with full Java path
 exec "$JAVA_BIN" ${JAVA_OPTS:--Xmx512m -Xms256m} \
     -Dspring.profiles.active=${SPRING_PROFILES_ACTIVE:-dev} \
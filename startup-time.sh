@@ -0,0 +1,55 @@
+#!/bin/bash
+# Time to first request of the plain jar and of the startup build (Spring AOT + JDK AOT cache): starts the app,
+# polls /products until it answers 200, stops it, and prints the median over a few runs.
+# Requires Redis on localhost (docker compose up -d redis) and a build with the startup profile:
+#   ./mvnw -Pstartup clean package -DskipTests
+#
+# Usage: ./startup-time.sh [runs] [port]
+
+set -e
+
+RUNS=${1:-5}
+PORT=${2:-8080}
+JAR=target/crud-redis-0.0.1.jar
+APP_DIR=target/application
+
+if [ ! -f "$APP_DIR/app.aot" ]; then
+    echo "No AOT cache in $APP_DIR, build with ./mvnw -Pstartup clean package -DskipTests"
+    exit 1
+fi
+
+time_to_first_request() {
+    local start
+    start=$(date +%s%N)
+    java "$@" --server.port="$PORT" > /dev/null 2>&1 &
+    local pid=$!
+    until curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/products" | grep -q 200; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "The application exited before answering" >&2
+            exit 1
+        fi
+        sleep 0.02
+    done
+    echo $(( ($(date +%s%N) - start) / 1000000 ))
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'
+}
+
+measure() {
+    local label=$1
+    shift
+    local times=()
+    for _ in $(seq "$RUNS"); do
+        times+=("$(time_to_first_request "$@")")
+    done
+    printf '%-32s %6s ms   (runs: %s)\n' "$label" "$(printf '%s\n' "${times[@]}" | median)" "${times[*]}"
+}
+
+measure "jar" -jar "$JAR"
+measure "extracted jar" -jar "$APP_DIR/crud-redis-0.0.1.jar"
+measure "Spring AOT + JDK AOT cache" -XX:AOTCache="$APP_DIR/app.aot" -Dspring.aot.enabled=true \
+    -jar "$APP_DIR/crud-redis-0.0.1.jar"